@@ -0,0 +1,44 @@
+package datacomm;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+public final class Benchmarks {
+
+    public static final byte[] ADDRESS_A = {0x02, 0x00, 0x00, 0x00, 0x00, 0x0A};
+    public static final byte[] ADDRESS_B = {0x02, 0x00, 0x00, 0x00, 0x00, 0x0B};
+
+    private Benchmarks() {
+    }
+
+    public static void discardConsole() {
+        // Per Frame Logging is Off, but Transfers Still Log at INFO and Errors at ERROR
+        // Log Writer Thread Drains Them Here, Off the Terminal and Out of Measured Output
+        PrintStream nullStream = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        System.setOut(nullStream);
+        System.setErr(nullStream);
+    }
+
+    public static void setAddress(LayerManager layerManager, byte[] sourceAddress, byte[] destinationAddress) {
+        EthernetLayer ethernet = (EthernetLayer) layerManager.getLayer("Ethernet");
+        ethernet.setSourceAddress(sourceAddress);
+        ethernet.setDestinationAddress(destinationAddress);
+    }
+
+    public static LayerManager connect(String layerListString, LayerInterface... layerList) {
+        LayerManager layerManager = new LayerManager();
+        for (LayerInterface layer : layerList)
+            layerManager.addLayer(layer);
+        layerManager.connectLayers(layerListString);
+        return layerManager;
+    }
+
+}
@@ -0,0 +1,50 @@
+package datacomm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatAppBenchmark {
+
+    @Param({"16", "1024", "16384", "65535"})
+    public int messageLength;
+
+    private ChatAppLayer chatApp;
+    private SinkLayer receiverApp;
+    private byte[] message;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.discardConsole();
+        LoopbackLayer senderLink = new LoopbackLayer("Link");
+        LoopbackLayer receiverLink = new LoopbackLayer("Link");
+        senderLink.connect(receiverLink);
+        receiverApp = new SinkLayer("App");
+        LayerManager sender = Benchmarks.connect(" Link ( *Ethernet ( *ChatApp ( *App ) ) )",
+                senderLink, new EthernetLayer("Ethernet"), new ChatAppLayer("ChatApp"), new SinkLayer("App"));
+        LayerManager receiver = Benchmarks.connect(" Link ( *Ethernet ( *ChatApp ( *App ) ) )",
+                receiverLink, new EthernetLayer("Ethernet"), new ChatAppLayer("ChatApp"), receiverApp);
+        Benchmarks.setAddress(sender, Benchmarks.ADDRESS_A, Benchmarks.ADDRESS_B);
+        Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+        chatApp = (ChatAppLayer) sender.getLayer("ChatApp");
+        message = new byte[messageLength];
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (receiverApp.getFrameCount() == 0) throw new IllegalStateException("no message delivered");
+    }
+
+    @Benchmark
+    public boolean send() {
+        // Fragmentation, Per-fragment ACK Round Trip and Reassembly on Receiver
+        return chatApp.send(message, messageLength);
+    }
+
+}
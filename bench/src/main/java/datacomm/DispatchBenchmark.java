@@ -0,0 +1,76 @@
+package datacomm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int BASE_DATA_TYPE = 0x3000;
+
+    @Param({"2", "8", "32"})
+    public int layerCount;
+
+    private EthernetLayer receiverEthernet;
+    private String[] layerNameList;
+    private byte[][] frameList;
+    private int index = 0;
+
+    private static LayerManager connect(SinkLayer link, int layerCount) {
+        // Every App Has Its Own EtherType Pair
+        LayerInterface[] layerList = new LayerInterface[layerCount + 2];
+        StringBuilder layerListString = new StringBuilder(" Link ( *Ethernet (");
+        layerList[0] = link;
+        layerList[1] = new EthernetLayer("Ethernet");
+        for (int index = 0; index < layerCount; index++) {
+            layerList[index + 2] = new SinkLayer("App" + index, BASE_DATA_TYPE + index * 2);
+            layerListString.append(" *App").append(index);
+        }
+        return Benchmarks.connect(layerListString.append(" ) )").toString(), layerList);
+    }
+
+    @Setup
+    public void setUp() {
+        Benchmarks.discardConsole();
+        SinkLayer senderLink = new SinkLayer("Link");
+        LayerManager sender = connect(senderLink, layerCount);
+        LayerManager receiver = connect(new SinkLayer("Link"), layerCount);
+        Benchmarks.setAddress(sender, Benchmarks.ADDRESS_A, Benchmarks.ADDRESS_B);
+        Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+        receiverEthernet = (EthernetLayer) receiver.getLayer("Ethernet");
+
+        EthernetLayer senderEthernet = (EthernetLayer) sender.getLayer("Ethernet");
+        byte[] payload = new byte[64];
+        layerNameList = new String[layerCount];
+        frameList = new byte[layerCount][];
+        senderLink.setCaptureEnabled(true);
+        for (int index = 0; index < layerCount; index++) {
+            layerNameList[index] = "App" + index;
+            senderEthernet.send(payload, payload.length, layerNameList[index]);
+            frameList[index] = senderLink.getLastFrame();
+        }
+    }
+
+    private int next() {
+        if (++index == layerCount) index = 0;
+        return index;
+    }
+
+    @Benchmark
+    public LayerInterface getUpperLayer() {
+        return receiverEthernet.getUpperLayer(layerNameList[next()]);
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        // Frames Rotate Over All EtherTypes so Lookup Can Not Settle on One Entry
+        return receiverEthernet.receive(frameList[next()]);
+    }
+
+}
@@ -0,0 +1,70 @@
+package datacomm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EthernetBenchmark {
+
+    private static final int DATA_TYPE = 0x3000;
+
+    @Param({"64", "1024", "1460"})
+    public int payloadLength;
+
+    @Param({"true", "false"})
+    public boolean compact;
+
+    private EthernetLayer senderEthernet;
+    private EthernetLayer receiverEthernet;
+    private SinkLayer senderLink;
+    private byte[] payload;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.discardConsole();
+        senderLink = new SinkLayer("Link");
+        SinkLayer receiverLink = new SinkLayer("Link");
+        LayerManager sender = Benchmarks.connect(" Link ( *Ethernet ( *App ) )",
+                senderLink, new EthernetLayer("Ethernet"), new SinkLayer("App", DATA_TYPE));
+        LayerManager receiver = Benchmarks.connect(" Link ( *Ethernet ( *App ) )",
+                receiverLink, new EthernetLayer("Ethernet"), new SinkLayer("App", DATA_TYPE));
+        Benchmarks.setAddress(sender, Benchmarks.ADDRESS_A, Benchmarks.ADDRESS_B);
+        Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+        senderEthernet = (EthernetLayer) sender.getLayer("Ethernet");
+        receiverEthernet = (EthernetLayer) receiver.getLayer("Ethernet");
+        senderEthernet.setCompactEnabled(compact);
+        receiverEthernet.setCompactEnabled(compact);
+        payload = new byte[payloadLength];
+
+        // One Frame Each Way so Both Sides Learn Which Format the Other Reads
+        receiverLink.setCaptureEnabled(true);
+        receiverEthernet.send(payload, payloadLength, "App");
+        senderEthernet.receive(receiverLink.getLastFrame());
+        senderLink.setCaptureEnabled(true);
+        senderEthernet.send(payload, payloadLength, "App");
+        frame = senderLink.getLastFrame();
+        senderLink.setCaptureEnabled(false);
+    }
+
+    @Benchmark
+    public boolean createFrame() {
+        // Payload Copied Into Pooled Buffer, Header Written in Front of It
+        FrameBuffer frameBuffer = senderEthernet.getFrameBuffer();
+        frameBuffer.put(payload, 0, payloadLength);
+        return senderEthernet.send(frameBuffer, "App");
+    }
+
+    @Benchmark
+    public boolean removeHeader() {
+        // Address Check, EtherType Dispatch and Header Strip Up to App
+        return receiverEthernet.receive(frame);
+    }
+
+}
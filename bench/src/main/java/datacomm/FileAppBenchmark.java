@@ -0,0 +1,161 @@
+package datacomm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileAppBenchmark {
+
+    private static final long RESPONSE_TIMEOUT = 5000; // Milliseconds
+
+    private static Path createSource(Path directory, int fileLength) throws IOException {
+        byte[] dataArray = new byte[fileLength];
+        new Random(fileLength).nextBytes(dataArray);
+        return Files.write(directory.resolve("source.bin"), dataArray);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        File[] fileList = directory.toFile().listFiles();
+        if (fileList != null)
+            for (File file : fileList)
+                Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    private static LayerManager[] connectPair(SinkLayer receiverApp) {
+        LoopbackLayer senderLink = new LoopbackLayer("Link");
+        LoopbackLayer receiverLink = new LoopbackLayer("Link");
+        senderLink.connect(receiverLink);
+        LayerManager sender = Benchmarks.connect(" Link ( *Ethernet ( *FileApp ( *App ) ) )",
+                senderLink, new EthernetLayer("Ethernet"), new FileAppLayer("FileApp"), new SinkLayer("App"));
+        LayerManager receiver = Benchmarks.connect(" Link ( *Ethernet ( *FileApp ( *App ) ) )",
+                receiverLink, new EthernetLayer("Ethernet"), new FileAppLayer("FileApp"), receiverApp);
+        Benchmarks.setAddress(sender, Benchmarks.ADDRESS_A, Benchmarks.ADDRESS_B);
+        Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+        return new LayerManager[]{sender, receiver};
+    }
+
+    @State(Scope.Thread)
+    public static class Transfer {
+
+        @Param({"1048576", "16777216"})
+        public int fileLength;
+
+        FileAppLayer fileApp;
+        Path directory;
+        String sourcePath;
+
+        @Setup
+        public void setUp() throws IOException {
+            Benchmarks.discardConsole();
+            directory = Files.createTempDirectory("datacomm-bench");
+            sourcePath = createSource(directory, fileLength).toString();
+            SinkLayer receiverApp = new SinkLayer("App");
+            receiverApp.setDestinationPath(directory.resolve("received.bin").toString());
+            fileApp = (FileAppLayer) connectPair(receiverApp)[0].getLayer("FileApp");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Replay {
+
+        @Param({"1048576", "16777216"})
+        public int fileLength;
+
+        @Param({"true", "false"})
+        public boolean shuffled;
+
+        LayerManager receiver;
+        EthernetLayer receiverEthernet;
+        SinkLayer receiverLink;
+        SinkLayer receiverApp;
+        ArrayList<byte[]> frameList = new ArrayList<>();
+        Path directory;
+
+        @Setup
+        public void setUp() throws IOException {
+            // Frames of One Real Transfer are Recorded Once and Fed to a Fresh Receiver Each Invocation
+            Benchmarks.discardConsole();
+            directory = Files.createTempDirectory("datacomm-bench");
+            String sourcePath = createSource(directory, fileLength).toString();
+            SinkLayer recordApp = new SinkLayer("App");
+            recordApp.setDestinationPath(directory.resolve("recorded.bin").toString());
+            LayerManager[] stackList = connectPair(recordApp);
+            ((LoopbackLayer) stackList[0].getLayer("Link")).setCaptureList(frameList);
+            if (!stackList[0].getLayer("FileApp").send(sourcePath)) throw new IllegalStateException("recording failed");
+
+            // Name Frame First, Digest Last, Data Frames in Between May Go in Any Order
+            if (shuffled) Collections.shuffle(frameList.subList(1, frameList.size() - 1), new Random(fileLength));
+        }
+
+        @Setup(Level.Invocation)
+        public void createReceiver() {
+            // Finished Transfer Lingers in Receiver, Replaying Its ID Into Same Stack Would Only Hit Duplicate Path
+            receiverLink = new SinkLayer("Link");
+            receiverApp = new SinkLayer("App");
+            receiverApp.setDestinationPath(directory.resolve("received.bin").toString());
+            receiver = Benchmarks.connect(" Link ( *Ethernet ( *FileApp ( *App ) ) )",
+                    receiverLink, new EthernetLayer("Ethernet"), new FileAppLayer("FileApp"), receiverApp);
+            Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+            receiverEthernet = (EthernetLayer) receiver.getLayer("Ethernet");
+        }
+
+        @TearDown(Level.Invocation)
+        public void releaseReceiver() {
+            receiver.unregisterMetrics();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            deleteDirectory(directory);
+        }
+
+        void awaitResponse(long frameCount) {
+            // Accept Response Goes Out on Its Own Thread Right After Name ACK
+            long deadline = System.currentTimeMillis() + RESPONSE_TIMEOUT;
+            while (receiverLink.getFrameCount() < frameCount + 2) {
+                if (System.currentTimeMillis() > deadline) throw new IllegalStateException("no accept response");
+                Thread.yield();
+            }
+        }
+
+    }
+
+    @Benchmark
+    public boolean transfer(Transfer transfer) {
+        // Whole Transfer Over Loopback: Name, Acceptance, Data, Digest and Verification
+        return transfer.fileApp.send(transfer.sourcePath);
+    }
+
+    @Benchmark
+    public boolean defragment(Replay replay) {
+        // Receiver Side Only: Reassembly, Positional File Writes and Streamed Digest
+        long verifiedCount = replay.receiverApp.getVerifiedCount();
+        long frameCount = replay.receiverLink.getFrameCount();
+        replay.receiverEthernet.receive(replay.frameList.get(0));
+        replay.awaitResponse(frameCount);
+        for (int index = 1; index < replay.frameList.size(); index++)
+            replay.receiverEthernet.receive(replay.frameList.get(index));
+        if (replay.receiverApp.getVerifiedCount() != verifiedCount + 1) throw new IllegalStateException("replayed file not verified");
+        return true;
+    }
+
+}
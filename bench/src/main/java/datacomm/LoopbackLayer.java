@@ -0,0 +1,60 @@
+package datacomm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class LoopbackLayer extends BaseLayer {
+
+    private static final int POOL_SIZE = 64;
+
+    private final FrameBufferPool frameBufferPool;
+    private final int mtu;
+    private LoopbackLayer peer = null;
+    private ArrayList<byte[]> captureList = null;
+
+    public LoopbackLayer(String layerName) {
+        this(layerName, FrameBuffer.DEFAULT_FRAME_SIZE - 14);
+    }
+
+    public LoopbackLayer(String layerName, int mtu) {
+        super(layerName);
+        this.mtu = mtu;
+        this.frameBufferPool = new FrameBufferPool(14 + mtu, POOL_SIZE, false);
+    }
+
+    public void connect(LoopbackLayer peer) {
+        this.peer = peer;
+        peer.peer = this;
+    }
+
+    public void setCaptureList(ArrayList<byte[]> captureList) {
+        // Frames Sent From This Side are Recorded for Replay, Null Stops Recording
+        this.captureList = captureList;
+    }
+
+    @Override
+    public int getMTU() {
+        return mtu;
+    }
+
+    @Override
+    public FrameBuffer getFrameBuffer() {
+        return frameBufferPool.acquire();
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        byte[] frame = frameBuffer.toByteArray();
+        frameBuffer.release();
+        return send(frame, frame.length);
+    }
+
+    @Override
+    public boolean send(byte[] dataArray, int dataLength) {
+        // Delivered on Sender's Thread, ACKs Come Back Before Send Returns
+        byte[] frame = Arrays.copyOf(dataArray, dataLength);
+        if (captureList != null) captureList.add(frame);
+        return peer.getUpperLayer(0).receive(frame);
+    }
+
+}
@@ -0,0 +1,108 @@
+package datacomm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SinkLayer extends BaseLayer implements FileAppLayer.FileListener {
+
+    private static final int POOL_SIZE = 64;
+
+    private final int dataType;
+    private final FrameBufferPool frameBufferPool = new FrameBufferPool(FrameBuffer.DEFAULT_FRAME_SIZE, POOL_SIZE, false);
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+    private volatile boolean captureEnabled = false;
+    private volatile byte[] lastFrame = null;
+    private volatile String destinationPath = null;
+    private final AtomicLong verifiedCount = new AtomicLong();
+
+    public SinkLayer(String layerName) {
+        this(layerName, -1);
+    }
+
+    public SinkLayer(String layerName, int dataType) {
+        // Data Type Only Matters When Sink Sits on Top of Ethernet
+        super(layerName);
+        this.dataType = dataType;
+    }
+
+    @Override
+    public int getDataType() {
+        return dataType;
+    }
+
+    @Override
+    public int getACKType() {
+        return dataType < 0 ? -1 : dataType + 1;
+    }
+
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
+    public void setCaptureEnabled(boolean captureEnabled) {
+        this.captureEnabled = captureEnabled;
+    }
+
+    public byte[] getLastFrame() {
+        return lastFrame;
+    }
+
+    public void setDestinationPath(String destinationPath) {
+        this.destinationPath = destinationPath;
+    }
+
+    public long getVerifiedCount() {
+        return verifiedCount.get();
+    }
+
+    private boolean count(int length) {
+        frameCount.incrementAndGet();
+        byteCount.addAndGet(length);
+        return true;
+    }
+
+    /* Bottom of Stack, Frames Sent Down are Dropped */
+    @Override
+    public FrameBuffer getFrameBuffer() {
+        return frameBufferPool.acquire();
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        int length = frameBuffer.length();
+        if (captureEnabled) lastFrame = frameBuffer.toByteArray();
+        frameBuffer.release();
+        return count(length);
+    }
+
+    /* Top of Stack, Frames Received From Below are Counted */
+    @Override
+    public boolean receive(byte[] dataArray, String layerName) {
+        return count(dataArray.length);
+    }
+
+    @Override
+    public boolean receive(byte[] dataArray, long peerAddress) {
+        return count(dataArray.length);
+    }
+
+    @Override
+    public boolean receiveACK(byte[] dataArray, long peerAddress) {
+        return count(dataArray == null ? 0 : dataArray.length);
+    }
+
+    @Override
+    public String acceptFile(long peerAddress, byte[] fileName) {
+        return destinationPath;
+    }
+
+    @Override
+    public void fileReceived(String filePath, boolean verified) {
+        if (verified) verifiedCount.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,109 @@
+package datacomm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualWireBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"4194304"})
+    public int fileLength;
+
+    @Param({"0", "1000000000"})
+    public long bandwidth; // Bits per Second, 0 for Unlimited
+
+    @Param({"0", "500"})
+    public long latency; // Microseconds, Jitter is a Fifth of It
+
+    @Param({"0", "0.05"})
+    public double reorderRate;
+
+    @Param({"0", "0.01"})
+    public double duplicationRate;
+
+    @Param({"0", "0.01"})
+    public double lossRate; // Recovered by Retransmission Timers
+
+    private ChatAppLayer chatApp;
+    private FileAppLayer fileApp;
+    private VirtualWireLayer senderWire;
+    private VirtualWireLayer receiverWire;
+    private Path directory;
+    private String sourcePath;
+    private byte[] message;
+
+    private VirtualWireLayer newWire(long seed) {
+        VirtualWireLayer wire = new VirtualWireLayer("Wire");
+        wire.setSeed(seed);
+        wire.setBandwidth(bandwidth);
+        wire.setLatency(latency, TimeUnit.MICROSECONDS);
+        wire.setJitter(latency / 5, TimeUnit.MICROSECONDS);
+        wire.setReorderRate(reorderRate);
+        wire.setDuplicationRate(duplicationRate);
+        wire.setLossRate(lossRate);
+        return wire;
+    }
+
+    private static LayerManager connect(VirtualWireLayer wire, SinkLayer app) {
+        return Benchmarks.connect(" Wire ( *Ethernet ( *ChatApp ( *App ) *FileApp ( *App ) ) )",
+                wire, new EthernetLayer("Ethernet"), new ChatAppLayer("ChatApp"), new FileAppLayer("FileApp"), app);
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        Benchmarks.discardConsole();
+        directory = Files.createTempDirectory("datacomm-bench");
+        byte[] dataArray = new byte[fileLength];
+        new Random(SEED).nextBytes(dataArray);
+        sourcePath = Files.write(directory.resolve("source.bin"), dataArray).toString();
+        message = new byte[64];
+
+        senderWire = newWire(SEED);
+        receiverWire = newWire(SEED + 1);
+        senderWire.connect(receiverWire);
+        SinkLayer receiverApp = new SinkLayer("App");
+        receiverApp.setDestinationPath(directory.resolve("received.bin").toString());
+        LayerManager sender = connect(senderWire, new SinkLayer("App"));
+        LayerManager receiver = connect(receiverWire, receiverApp);
+        Benchmarks.setAddress(sender, Benchmarks.ADDRESS_A, Benchmarks.ADDRESS_B);
+        Benchmarks.setAddress(receiver, Benchmarks.ADDRESS_B, Benchmarks.ADDRESS_A);
+        chatApp = (ChatAppLayer) sender.getLayer("ChatApp");
+        fileApp = (FileAppLayer) sender.getLayer("FileApp");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        senderWire.reset();
+        receiverWire.reset();
+        File[] fileList = directory.toFile().listFiles();
+        if (fileList != null)
+            for (File file : fileList)
+                Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public boolean chatMessage() {
+        // One Round Trip per Message, Dominated by Latency
+        return chatApp.send(message, message.length);
+    }
+
+    @Benchmark
+    public boolean fileTransfer() {
+        return fileApp.send(sourcePath);
+    }
+
+}
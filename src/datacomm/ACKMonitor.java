@@ -0,0 +1,290 @@
+package datacomm;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ACKMonitor {
+
+    public static final long DEFAULT_TIMEOUT = 30000; // Milliseconds, Backstop Behind Retry Limit
+    public static final int MAX_RETRIES = 10; // Retransmissions of One Frame Before Giving Up
+
+    private static final int RETRANSMIT_THREADS = 4;
+    private static final int RETRANSMIT_QUEUE = 1024;
+
+    // Resends Read Files and Hit the Wire, Kept Off Timer Wheel and Receive Threads
+    // Resend Dropped When Queue is Full, Its Timer is Already Armed Again
+    private static final ThreadPoolExecutor RETRANSMITTER = new ThreadPoolExecutor(RETRANSMIT_THREADS, RETRANSMIT_THREADS,
+            1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(RETRANSMIT_QUEUE), task -> {
+        Thread thread = new Thread(task, "retransmit");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    static {
+        RETRANSMITTER.allowCoreThreadTimeOut(true);
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition acknowledged = lock.newCondition();
+    private final HashMap<Integer, InFlight> inFlightList = new HashMap<>(); // Keyed by Sequence Number
+    private final LayerMetrics metrics;
+    private final RTOEstimator rtoEstimator;
+    private final CongestionWindow congestionWindow; // Null Without Congestion Control
+    private boolean failed = false; // Some Frame Ran Out of Retries
+    private volatile long ackDelay = 0; // Nanoseconds Peer May Hold an ACK Back
+
+    public ACKMonitor() {
+        this(null);
+    }
+
+    public ACKMonitor(LayerMetrics metrics) {
+        this(metrics, new RTOEstimator());
+    }
+
+    public ACKMonitor(LayerMetrics metrics, RTOEstimator rtoEstimator) {
+        this(metrics, rtoEstimator, null);
+    }
+
+    public ACKMonitor(LayerMetrics metrics, RTOEstimator rtoEstimator, CongestionWindow congestionWindow) {
+        // Round Trips and Window Waits Recorded in Owning Layer's Metrics
+        // Estimator May be Shared by Monitors Talking to Same Peer
+        // Window Grows With ACKs and Shrinks With Retransmission Timeouts
+        this.metrics = metrics;
+        this.rtoEstimator = rtoEstimator;
+        this.congestionWindow = congestionWindow;
+    }
+
+    public RTOEstimator getRTOEstimator() {
+        return rtoEstimator;
+    }
+
+    public CongestionWindow getCongestionWindow() {
+        return congestionWindow;
+    }
+
+    public void setACKDelay(long ackDelay, TimeUnit unit) {
+        // Added to Every Timeout, Round Trip Samples Come From Frames That Did Not Wait
+        this.ackDelay = Math.max(0, unit.toNanos(ackDelay));
+    }
+
+    public void expect(int seqNum) {
+        expect(seqNum, null);
+    }
+
+    public void expect(int seqNum, Runnable retransmission) {
+        // Frame Goes Again Each Time Its Timer Fires Before ACK, Null Only Waits
+        InFlight inFlight = new InFlight(seqNum, retransmission);
+        lock.lock();
+        try {
+            InFlight previous = inFlightList.put(seqNum, inFlight);
+            if (previous != null) previous.cancel();
+            if (retransmission != null) inFlight.arm();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean acknowledge(int seqNum) {
+        lock.lock();
+        try {
+            InFlight inFlight = inFlightList.remove(seqNum);
+            if (inFlight == null) return false;
+            long now = System.nanoTime();
+            release(inFlight, now);
+            if (inFlight.retries == 0) sample(now - inFlight.sendTime);
+            acknowledged.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int acknowledge(int cumSeqNum, BitSet selectiveBitmap) {
+        // Everything Up to Cumulative Sequence Number, Bit i Stands for cumSeqNum + 2 + i
+        // Gap Counts as Lost Once a Frame Sent Well After It Got Through, Goes Again Without Waiting for Its Timer
+        ArrayList<InFlight> lostList = new ArrayList<>();
+        int count = 0;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            InFlight newest = null; // Sent Once, Its Arrival Most Likely Triggered This ACK
+            Iterator<InFlight> iterator = inFlightList.values().iterator();
+            while (iterator.hasNext()) {
+                InFlight inFlight = iterator.next();
+                int index = inFlight.seqNum - cumSeqNum - 2;
+                if (inFlight.seqNum > cumSeqNum && (index < 0 || !selectiveBitmap.get(index))) continue;
+                iterator.remove();
+                release(inFlight, now);
+                count++;
+                if (inFlight.retries == 0 && (newest == null || inFlight.sendTime - newest.sendTime > 0)) newest = inFlight;
+            }
+            if (count == 0) return 0;
+            acknowledged.signalAll();
+            if (newest == null) return count; // Retransmitted Frames Could Answer Either Copy, Tell Nothing of Gaps
+            sample(now - newest.sendTime);
+
+            long reorderWindow = rtoEstimator.getSRTT() / 4; // Slack for Frames Overtaking Each Other
+            for (InFlight inFlight : inFlightList.values()) {
+                if (inFlight.retries > 0 || inFlight.retransmission == null) continue;
+                if (newest.sendTime - inFlight.sendTime < reorderWindow) continue;
+                if (congestionWindow != null) congestionWindow.onLoss(inFlight.sendTime);
+                inFlight.cancel();
+                inFlight.retries++;
+                inFlight.resendTime = now;
+                inFlight.arm();
+                lostList.add(inFlight);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (InFlight inFlight : lostList)
+            RETRANSMITTER.execute(() -> retransmit(inFlight));
+        return count;
+    }
+
+    private void release(InFlight inFlight, long now) {
+        // Frame Left Flight, Guarded by Monitor Lock
+        inFlight.cancel();
+        if (congestionWindow == null) return;
+        congestionWindow.onACK();
+        if (inFlight.retries > 0 && now - inFlight.resendTime < rtoEstimator.getSRTT() / 2) {
+            // Too Early to Answer Resent Copy, Original Was Only Late
+            congestionWindow.undo();
+        }
+    }
+
+    private void sample(long rtt) {
+        // Karn's Rule Kept by Callers, ACK of Retransmitted Frame Could Answer Any Copy
+        rtoEstimator.sample(rtt);
+        if (metrics != null) metrics.getACKRoundTrip().record(rtt);
+    }
+
+    private void expire(InFlight inFlight) {
+        // Timer Wheel Thread, Only Marks Frame and Hands Resend Over
+        lock.lock();
+        try {
+            if (inFlightList.get(inFlight.seqNum) != inFlight) return; // ACKed Meanwhile
+            if (inFlight.retries >= MAX_RETRIES) {
+                failed = true;
+                acknowledged.signalAll();
+                return;
+            }
+            if (congestionWindow != null) congestionWindow.onLoss(inFlight.sendTime);
+            inFlight.retries++;
+            inFlight.resendTime = System.nanoTime();
+            inFlight.arm();
+        } finally {
+            lock.unlock();
+        }
+        RETRANSMITTER.execute(() -> retransmit(inFlight));
+    }
+
+    public boolean retransmit(int seqNum) {
+        // Peer Asked for Frame Again, Sent Without Counting as Loss
+        InFlight inFlight;
+        lock.lock();
+        try {
+            inFlight = inFlightList.get(seqNum);
+        } finally {
+            lock.unlock();
+        }
+        if (inFlight == null || inFlight.retransmission == null) return false;
+        RETRANSMITTER.execute(() -> retransmit(inFlight));
+        return true;
+    }
+
+    private void retransmit(InFlight inFlight) {
+        // Executor Thread, Frame ACKed While Queued Needs No Resend
+        lock.lock();
+        try {
+            if (inFlightList.get(inFlight.seqNum) != inFlight) return;
+        } finally {
+            lock.unlock();
+        }
+        inFlight.retransmission.run();
+    }
+
+    public boolean waitACK(int windowLimit) {
+        return waitACK(windowLimit, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean waitACK(int windowLimit, long timeout, TimeUnit unit) {
+        // Block Until In-flight Count Drops Below Limit, False on Timeout
+        long nanos = unit.toNanos(timeout);
+        long startTime = System.nanoTime();
+        lock.lock();
+        try {
+            while (inFlightList.size() >= windowLimit) {
+                if (failed || nanos <= 0L) return false;
+                nanos = acknowledged.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+            if (metrics != null) metrics.getACKWait().record(System.nanoTime() - startTime);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return inFlightList.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        // Pending Retransmissions Stop, Monitor Usable Again
+        lock.lock();
+        try {
+            for (InFlight inFlight : inFlightList.values())
+                inFlight.cancel();
+            inFlightList.clear();
+            failed = false;
+            acknowledged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class InFlight implements Runnable {
+
+        final int seqNum;
+        final Runnable retransmission;
+        final long sendTime = System.nanoTime();
+        int retries = 0; // Guarded by Monitor Lock
+        long resendTime = 0;
+        TimerWheel.Timeout timeout = null;
+
+        public InFlight(int seqNum, Runnable retransmission) {
+            this.seqNum = seqNum;
+            this.retransmission = retransmission;
+        }
+
+        void arm() {
+            timeout = TimerWheel.getInstance().schedule(this, rtoEstimator.getTimeout(retries) + ackDelay, TimeUnit.NANOSECONDS);
+        }
+
+        void cancel() {
+            if (timeout != null) timeout.cancel();
+        }
+
+        @Override
+        public void run() {
+            expire(this);
+        }
+
+    }
+
+}
@@ -1,11 +1,20 @@
 package datacomm;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 public abstract class BaseLayer implements LayerInterface {
 
+    private static final LogWriter.Level DEFAULT_LOG_LEVEL = getDefaultLogLevel();
+
     private final ArrayList<LayerInterface> upperLayerList = new ArrayList<>();
+    private final HashMap<String, LayerInterface> upperLayerMap = new HashMap<>(); // Keyed by Layer Name
     private final String layerName;
+    private final LayerMetrics metrics = new LayerMetrics();
+    private volatile LogWriter.Level logLevel = DEFAULT_LOG_LEVEL;
+    private volatile boolean hexDumpEnabled = false;
 
     private LayerInterface underLayer = null;
 
@@ -13,22 +22,52 @@ public abstract class BaseLayer implements LayerInterface {
         this.layerName = layerName;
     }
 
+    private static LogWriter.Level getDefaultLogLevel() {
+        // -Ddatacomm.log.level=DEBUG Turns On Per Frame Messages Everywhere
+        try {
+            return LogWriter.Level.valueOf(System.getProperty("datacomm.log.level", "INFO").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return LogWriter.Level.INFO;
+        }
+    }
+
+    public LogWriter.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public void setLogLevel(LogWriter.Level logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    public void setHexDumpEnabled(boolean hexDumpEnabled) {
+        this.hexDumpEnabled = hexDumpEnabled;
+    }
+
+    public boolean isLoggable(LogWriter.Level level) {
+        // Checked Before Message is Built, Per Frame Callers Guard With isDebugEnabled
+        return level.compareTo(logLevel) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isLoggable(LogWriter.Level.DEBUG);
+    }
+
+    public void printDebug(String str) {
+        if (isLoggable(LogWriter.Level.DEBUG)) LogWriter.getInstance().write(LogWriter.Level.DEBUG, layerName, str);
+    }
+
     public void print(String str) {
-        System.out.printf("[%s] %s\n", layerName, str);
+        if (isLoggable(LogWriter.Level.INFO)) LogWriter.getInstance().write(LogWriter.Level.INFO, layerName, str);
     }
 
     public void printError(String errStr) {
-        System.err.printf("[%s] %s\n", layerName, errStr);
+        if (isLoggable(LogWriter.Level.ERROR)) LogWriter.getInstance().write(LogWriter.Level.ERROR, layerName, errStr);
     }
 
     public void printHex(byte[] dataArray, int dataLength) {
-        StringBuilder stringBuilder = new StringBuilder(String.format("[%s]", layerName));
-        for (int index = 0; index < dataLength; index++) {
-            stringBuilder.append(String.format(" %02X", dataArray[index]));
-            if ((index + 1) % 8 == 0 && (index + 1) < dataLength)
-                stringBuilder.append(String.format("\n[%s]", layerName));
-        }
-        System.out.println(stringBuilder);
+        // Opt-in per Layer, Bytes Copied Here and Formatted on Writer Thread
+        if (!hexDumpEnabled || dataArray == null) return;
+        LogWriter.getInstance().write(LogWriter.Level.DEBUG, layerName, null, Arrays.copyOf(dataArray, dataLength), dataLength);
     }
 
     @Override
@@ -54,17 +93,15 @@ public abstract class BaseLayer implements LayerInterface {
 
     @Override
     public LayerInterface getUpperLayer(String layerName) {
-        if (layerName == null || upperLayerList.isEmpty()) return null;
-        for (LayerInterface upperLayer : upperLayerList)
-            if (upperLayer.getLayerName().equals(layerName))
-                return upperLayer;
-        return null;
+        if (layerName == null) return null;
+        return upperLayerMap.get(layerName);
     }
 
     @Override
     public void setUpperLayer(LayerInterface upperLayer) {
         if (upperLayer == null) return;
         upperLayerList.add(upperLayer);
+        upperLayerMap.putIfAbsent(upperLayer.getLayerName(), upperLayer);
     }
 
     @Override
@@ -79,6 +116,17 @@ public abstract class BaseLayer implements LayerInterface {
         upperUnderLayer.setUnderLayer(this);
     }
 
+    @Override
+    public int getDataType() {
+        // No EtherType of Its Own
+        return -1;
+    }
+
+    @Override
+    public int getACKType() {
+        return -1;
+    }
+
     @Override
     public boolean send(byte[] dataArray, int dataLength) {
         return send(dataArray, dataLength, null);
@@ -94,6 +142,61 @@ public abstract class BaseLayer implements LayerInterface {
         return false;
     }
 
+    @Override
+    public boolean sendACK(byte[] dataArray, int dataLength, String layerName) {
+        return false;
+    }
+
+    @Override
+    public FrameBuffer getFrameBuffer() {
+        // Bottom Layer Owns Frame Buffers
+        if (getUnderLayer() != null) return getUnderLayer().getFrameBuffer();
+        return new FrameBuffer(ByteBuffer.allocate(FrameBuffer.HEADROOM + FrameBuffer.DEFAULT_FRAME_SIZE), null);
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer) {
+        return send(frameBuffer, null);
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        // Fallback for Layers Working on Arrays
+        byte[] frame = frameBuffer.toByteArray();
+        frameBuffer.release();
+        return send(frame, frame.length, layerName);
+    }
+
+    @Override
+    public boolean sendACK(FrameBuffer frameBuffer, String layerName) {
+        frameBuffer.release();
+        return false;
+    }
+
+    @Override
+    public boolean setFilter(String filterExpression) {
+        // Filter is Installed by Bottom Layer
+        return getUnderLayer() != null && getUnderLayer().setFilter(filterExpression);
+    }
+
+    @Override
+    public long getDefaultPeerAddress() {
+        // Peer Used When Caller Names None, Known by Link Layer
+        return getUnderLayer() == null ? 0 : getUnderLayer().getDefaultPeerAddress();
+    }
+
+    @Override
+    public int getMTU() {
+        // Payload Size Offered to Layer Above, Layers With Headers Subtract Their Own
+        if (getUnderLayer() != null) return getUnderLayer().getMTU();
+        return FrameBuffer.DEFAULT_FRAME_SIZE - 14; // Ethernet Header
+    }
+
+    @Override
+    public LayerMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public boolean receive() {
         return false;
@@ -108,4 +211,20 @@ public abstract class BaseLayer implements LayerInterface {
     public boolean receive(byte[] dataArray, String layerName) {
         return false;
     }
+
+    @Override
+    public boolean receive(byte[] dataArray, long peerAddress) {
+        // Layers Without Per-peer State Ignore Sender
+        return receive(dataArray);
+    }
+
+    @Override
+    public boolean receiveACK(byte[] dataArray) {
+        return receive(null);
+    }
+
+    @Override
+    public boolean receiveACK(byte[] dataArray, long peerAddress) {
+        return receiveACK(dataArray);
+    }
 }
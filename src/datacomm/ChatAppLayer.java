@@ -1,139 +1,367 @@
 package datacomm;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ChatAppLayer extends BaseLayer {
 
-    private static final int MTU = 1456;
-
-    private final ArrayList<Boolean> ackCheckList = new ArrayList<>();
-    private int fragCount = 0;
-    private ChatAppHeader header;
-    private byte[] fragBytes;
+    private static final int DATA_TYPE = 0x2080; // EtherType
+    private static final int ACK_TYPE = 0x2081;
+    private static final int HEADER_LENGTH = 4;
+    private static final int BASE_FRAME_SIZE = 1460; // Used Until Peer's ACK Tells Its Frame Size
+    private static final int SEQUENCE_START = 0x80; // Header Flag Next to 7-bit Sequence Number
+    private static final int SEQUENCE_MASK = 0x7F;
+    private static final int SESSION_ID_LENGTH = 8;
+    private static final int BATCH_CAPABLE = 0x01; // ACK Flag, Peer Splits Coalesced Frames
+    private static final long DEFAULT_FLUSH_DELAY = 5; // Milliseconds Small Message May Wait for Company
+    private static final int DEFAULT_FLUSH_THRESHOLD = 1024; // Bytes Coalesced Before Frame Goes Without Waiting
+
+    private final ConcurrentHashMap<Long, ChatSession> sessionMap = new ConcurrentHashMap<>(); // Keyed by Peer Address
+    private volatile boolean coalescingEnabled = false;
+    private volatile long flushDelay = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FLUSH_DELAY);
+    private volatile int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
 
     public ChatAppLayer(String layerName) {
         super(layerName);
-        resetHeader();
-        ackCheckList.add(true);
     }
 
-    private void resetHeader() {
-        header = new ChatAppHeader();
+    private ChatSession getSession(long peerAddress) {
+        ChatSession session = sessionMap.get(peerAddress);
+        return session != null ? session : sessionMap.computeIfAbsent(peerAddress, address -> new ChatSession(address, getMetrics()));
     }
 
-    private byte[] createFrame(byte[] dataArray, int dataLength) {
-        byte[] frame = new byte[dataLength + 4];
-        System.arraycopy(header.totalLength, 0, frame, 0, 2);
-        frame[2] = header.type;
-        frame[3] = header.unused;
+    @Override
+    public int getDataType() {
+        return DATA_TYPE;
+    }
+
+    @Override
+    public int getACKType() {
+        return ACK_TYPE;
+    }
 
-        // Not ACK Frame
-        if (dataArray != null && dataLength > 0) System.arraycopy(dataArray, 0, frame, 4, dataLength);
+    public void setCoalescingEnabled(boolean coalescingEnabled) {
+        // Small Messages Share Frames, Only Toward Peers Whose ACKs Say They Split Them
+        this.coalescingEnabled = coalescingEnabled;
+    }
 
-        return frame;
+    public boolean isCoalescingEnabled() {
+        return coalescingEnabled;
     }
 
-    private byte[] removeHeader(byte[] frame, int frameLength) {
-        byte[] dataArray = new byte[frameLength - 4]; // Remove ChatApp Header
-        System.arraycopy(frame, 4, dataArray, 0, frameLength - 4);
-        return dataArray;
+    public long getFlushDelay(TimeUnit unit) {
+        return unit.convert(flushDelay, TimeUnit.NANOSECONDS);
     }
 
-    private byte[] integerToByte2(int value) {
-        byte[] byteBuffer = new byte[2];
-        byteBuffer[0] |= (byte) ((value & 0xFF00) >> 8);
-        byteBuffer[1] |= (byte) (value & 0xFF);
-        return byteBuffer;
+    public void setFlushDelay(long flushDelay, TimeUnit unit) {
+        this.flushDelay = Math.max(0, unit.toNanos(flushDelay));
+    }
+
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = Math.max(1, flushThreshold);
+    }
+
+    private void createFrame(FrameBuffer frameBuffer, ChatAppHeader header) {
+        // Header Written in Place in Front of Payload
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.putShort(index, header.totalLength);
+        frameBuffer.putByte(index + 2, header.type);
+        frameBuffer.putByte(index + 3, header.unused);
+    }
+
+    private boolean sendFrame(ChatSession session, byte[] dataArray, int offset, int dataLength) {
+        // Unused Header Byte Carries Sequence Number, Receiver Drops Retransmitted Copies by It
+        // Flag Marks First Frame of Session, Its Payload is Session ID Instead of Message
+        session.sequenceNumber = session.sequenceNumber % SEQUENCE_MASK + 1;
+        session.header.unused = (byte) (session.sequenceNumber | (session.started ? 0 : SEQUENCE_START));
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        frameBuffer.put(dataArray, offset, dataLength);
+        frameBuffer.setPeerAddress(session.peerAddress);
+        createFrame(frameBuffer, session.header);
+
+        // Payload Kept Until ACK, Caller's Array May be Reused Once send Returns
+        // One Frame in Flight per Peer, So One Buffer per Session is Reused for Every Frame
+        int seqNum = session.sequenceNumber;
+        synchronized (session.resendLock) {
+            if (session.resendArray.length < dataLength) session.resendArray = new byte[Math.max(dataLength, getFragmentSize(session))];
+            System.arraycopy(dataArray, offset, session.resendArray, 0, dataLength);
+            session.resendLength = dataLength;
+            session.resendHeader.totalLength = session.header.totalLength;
+            session.resendHeader.type = session.header.type;
+            session.resendHeader.unused = session.header.unused;
+            session.resendSequenceNumber = seqNum;
+        }
+        session.ackMonitor.expect(seqNum, () -> resendFrame(session, seqNum));
+        getMetrics().sent(frameBuffer.length());
+        return getUnderLayer().send(frameBuffer, getLayerName());
+    }
+
+    private void resendFrame(ChatSession session, int seqNum) {
+        // Buffer Already Holds Next Frame Once This One Was ACKed
+        // Sent Under Lock, Stalled Worker Can Not Put Copy on Wire After Frames That Follow It
+        synchronized (session.resendLock) {
+            if (session.resendSequenceNumber != seqNum) return;
+            FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+            frameBuffer.put(session.resendArray, 0, session.resendLength);
+            createFrame(frameBuffer, session.resendHeader);
+            frameBuffer.setPeerAddress(session.peerAddress);
+            if (isDebugEnabled()) printDebug("resend " + seqNum);
+            getMetrics().sent(frameBuffer.length());
+            getMetrics().retransmitted();
+            getUnderLayer().send(frameBuffer, getLayerName());
+        }
+    }
+
+    private void sendStart(ChatSession session) {
+        // Session ID Sent as First Fragment, Older Peers Only Begin Reassembly and ACK It
+        ChatAppHeader header = session.header;
+        byte[] sessionIdArray = ByteBuffer.allocate(SESSION_ID_LENGTH).putLong(session.sessionId).array();
+        header.totalLength = SESSION_ID_LENGTH;
+        header.type = (byte) (0x01);
+        sendFrame(session, sessionIdArray, 0, SESSION_ID_LENGTH);
+        session.started = true;
+    }
+
+    private void receiveStart(ChatSession session, byte[] frame, int seqNum) {
+        // Restarted Peer Brings New Session ID, Copies of Same Start Frame Bring Old One
+        if (frame.length < HEADER_LENGTH + SESSION_ID_LENGTH) {
+            printError("truncated session start");
+            return;
+        }
+        long sessionId = ByteBuffer.wrap(frame, HEADER_LENGTH, SESSION_ID_LENGTH).getLong();
+        if (sessionId == session.peerSessionId) {
+            getMetrics().dropped();
+            return;
+        }
+        session.peerSessionId = sessionId;
+        session.receivedSequenceNumber = seqNum;
+        if (session.fragBytes != null) getMetrics().addReassemblyBytes(-session.fragBytes.length); // Message Cut by Restart
+        session.fragBytes = null;
+        session.fragOffset = 0;
+    }
+
+    private void sendACK(long peerAddress, int seqNum) {
+        // Frame Size for Fragmenting, Sequence Number Tells Which Frame is ACKed
+        printDebug("send ACK");
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        int index = frameBuffer.append(4);
+        frameBuffer.putShort(index, getUnderLayer().getMTU());
+        frameBuffer.putByte(index + 2, seqNum);
+        frameBuffer.putByte(index + 3, BATCH_CAPABLE); // Zero Padding From Older Peers Reads as Not Capable
+        frameBuffer.setPeerAddress(peerAddress);
+        getMetrics().sent(frameBuffer.length());
+        getUnderLayer().sendACK(frameBuffer, "ChatApp");
+    }
+
+    private byte[] removeHeader(byte[] frame, int frameLength) {
+        byte[] dataArray = new byte[frameLength - HEADER_LENGTH]; // Remove ChatApp Header
+        System.arraycopy(frame, HEADER_LENGTH, dataArray, 0, frameLength - HEADER_LENGTH);
+        return dataArray;
     }
 
     private int byte2ToInteger(byte value1, byte value2) {
         return ((value1 & 0xFF) << 8) | (value2 & 0xFF);
     }
 
-    /* Polling */
-    private void waitACK() { // ACK Check
-        // TODO Change Polling to Event-driven
-        while (ackCheckList.size() <= 0) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        ackCheckList.remove(0);
+    private boolean waitACK(ChatSession session) { // ACK Check
+        // Only One Frame is in Flight per Peer, Timer Resends It Until ACKed
+        if (session.ackMonitor.waitACK(1)) return true;
+        printError("ACK timeout from " + EthernetLayer.formatAddress(session.peerAddress));
+        session.ackMonitor.clear();
+        return false;
     }
 
-    private void fragmentedSend(byte[] dataArray, int dataLength) {
-        byte[] frame = new byte[MTU];
+    private int getFragmentSize(ChatSession session) {
+        // Smaller of Both Sides' Frame Size, Fixed for Whole Message
+        int peerFrameSize = session.peerFrameSize > 0 ? session.peerFrameSize : BASE_FRAME_SIZE;
+        return Math.min(getUnderLayer().getMTU(), peerFrameSize) - HEADER_LENGTH;
+    }
 
+    private boolean fragmentedSend(ChatSession session, byte[] dataArray, int dataLength, int fragSize) {
+        ChatAppHeader header = session.header;
         // First Send
-        header.totalLength = integerToByte2(dataLength);
+        header.totalLength = dataLength;
         header.type = (byte) (0x01);
-        System.arraycopy(dataArray, 0, frame, 0, MTU);
-        frame = createFrame(frame, MTU);
-        getUnderLayer().send(frame, frame.length, getLayerName());
+        sendFrame(session, dataArray, 0, fragSize);
 
-        int maxLength = dataLength / MTU;
+        int maxLength = dataLength / fragSize;
 
         // Next Send
-        header.totalLength = integerToByte2(MTU);
+        header.totalLength = fragSize;
         header.type = (byte) (0x02);
         for (int index = 1; index < maxLength; index++) {
-            this.waitACK(); // Wait for Previous Send
-            if ((index + 1 == maxLength) && (dataLength % MTU == 0))
+            if (!this.waitACK(session)) return false; // Wait for Previous Send
+            if ((index + 1 == maxLength) && (dataLength % fragSize == 0))
                 header.type = (byte) (0x03);
-            System.arraycopy(dataArray, MTU * index, frame, 0, MTU);
-            frame = createFrame(frame, MTU);
-            getUnderLayer().send(frame, frame.length, getLayerName());
+            sendFrame(session, dataArray, fragSize * index, fragSize);
         }
 
         // Last Send
         header.type = (byte) (0x03);
-        if (dataLength % MTU != 0) {
-            this.waitACK();
+        if (dataLength % fragSize != 0) {
+            if (!this.waitACK(session)) return false;
 
-            frame = new byte[dataLength % MTU];
-            header.totalLength = integerToByte2(dataLength % MTU);
-
-            System.arraycopy(dataArray, dataLength - (dataLength % MTU), frame, 0, dataLength % MTU);
-            frame = createFrame(frame, frame.length);
-            getUnderLayer().send(frame, frame.length, getLayerName());
+            header.totalLength = dataLength % fragSize;
+            sendFrame(session, dataArray, dataLength - (dataLength % fragSize), dataLength % fragSize);
         }
+        return true;
+    }
+
+    private boolean coalesce(ChatSession session, byte[] dataArray, int dataLength) {
+        // Length-prefixed Into Pending Frame, Goes Once Over Threshold, Full or Flush Delay Passed
+        int capacity = getFragmentSize(session);
+        if (session.batchLength + 2 + dataLength > capacity && !flushBatch(session)) return false;
+        if (session.batchArray.length < capacity) session.batchArray = Arrays.copyOf(session.batchArray, capacity);
+        session.batchArray[session.batchLength] = (byte) (dataLength >> 8);
+        session.batchArray[session.batchLength + 1] = (byte) dataLength;
+        System.arraycopy(dataArray, 0, session.batchArray, session.batchLength + 2, dataLength);
+        session.batchLength += 2 + dataLength;
+
+        if (session.batchLength >= flushThreshold) return flushBatch(session);
+        if (session.flushTimeout == null)
+            session.flushTimeout = TimerWheel.getInstance().schedule(() -> TimerWheel.getInstance().execute(() -> flushLater(session)), flushDelay, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private boolean flushBatch(ChatSession session) {
+        // Sender Thread, Blocks for Frame in Flight Like Any Send
+        if (!this.waitACK(session)) return false;
+        sendBatch(session);
+        return true;
+    }
+
+    private void flushLater(ChatSession session) {
+        // Timer Worker or Receive Thread Must Not Block, Lock Holder or Next ACK Flushes Instead
+        session.flushDue = true;
+        if (session.sendLock.tryLock()) unlockSend(session);
+    }
+
+    private void unlockSend(ChatSession session) {
+        // Flush Finding Lock Taken Just Before Release is Left to Holder, So Holder Looks Again Once Released
+        do {
+            flushIfDue(session);
+            session.sendLock.unlock();
+        } while (session.flushDue && session.ackMonitor.size() == 0 && session.sendLock.tryLock());
+    }
+
+    private void flushIfDue(ChatSession session) {
+        if (!session.flushDue || session.ackMonitor.size() != 0) return;
+        if (session.batchLength > 0) sendBatch(session);
+        else session.flushDue = false; // Already Went With Larger Message
+    }
+
+    private void sendBatch(ChatSession session) {
+        // Send Lock Held, Nothing in Flight
+        ChatAppHeader header = session.header;
+        header.totalLength = session.batchLength;
+        header.type = (byte) (0x04);
+        sendFrame(session, session.batchArray, 0, session.batchLength);
+        session.batchLength = 0;
+        session.flushDue = false;
+        if (session.flushTimeout != null) session.flushTimeout.cancel();
+        session.flushTimeout = null;
     }
 
     @Override
     public boolean send(byte[] dataArray, int dataLength) {
-        print("send");
+        return send(dataArray, dataLength, getDefaultPeerAddress());
+    }
+
+    public boolean send(byte[] dataArray, int dataLength, long peerAddress) {
+        printDebug("send");
         printHex(dataArray, dataLength);
 
-        byte[] frame;
-        header.totalLength = integerToByte2(dataLength);
-        header.type = (byte) (0x00);
-
-        this.waitACK(); // Wait for Previous Send
-        if (dataLength > MTU) {
-            print("fragmented send");
-            fragmentedSend(dataArray, dataLength);
-        } else {
-            frame = createFrame(dataArray, dataLength);
-            getUnderLayer().send(frame, frame.length, getLayerName());
+        // Sends to One Peer are Serialized, Other Peers Proceed in Parallel
+        // Coalesced Message Counts as Sent Once Queued, Failure Shows on Later Send
+        ChatSession session = getSession(peerAddress);
+        session.sendLock.lock();
+        try {
+            if (coalescingEnabled && session.peerBatching && dataLength + 2 < Math.min(flushThreshold, getFragmentSize(session)))
+                return coalesce(session, dataArray, dataLength);
+            if (session.batchLength > 0 && !flushBatch(session)) return false; // Queued Messages Go First
+
+            if (!session.started) sendStart(session); // Receiver Forgets Sequence Numbers of Any Earlier Run
+
+            ChatAppHeader header = session.header;
+            header.totalLength = dataLength;
+            header.type = (byte) (0x00);
+
+            if (!this.waitACK(session)) return false; // Wait for Previous Send
+            int fragSize = getFragmentSize(session);
+            if (dataLength > fragSize) {
+                printDebug("fragmented send");
+                return fragmentedSend(session, dataArray, dataLength, fragSize);
+            } else {
+                sendFrame(session, dataArray, 0, dataLength);
+            }
+        } finally {
+            unlockSend(session); // Flush Delay May Have Passed While Lock Was Held
         }
 
         return true;
     }
 
     @Override
-    public synchronized boolean receive(byte[] frame) {
+    public boolean receive(byte[] frame) {
+        return receive(frame, getDefaultPeerAddress());
+    }
+
+    @Override
+    public boolean receiveACK(byte[] frame, long peerAddress) {
+        // ACK Carries Peer's Frame Size, Zero From Peers Not Telling
+        // Peers Without Sequence Numbers ACK Whatever is in Flight
+        ChatSession session = getSession(peerAddress);
+        getMetrics().received(frame == null ? 0 : frame.length);
+        if (frame != null && frame.length >= 2)
+            session.peerFrameSize = byte2ToInteger(frame[0], frame[1]);
+        session.peerBatching = frame != null && frame.length >= 4 && (frame[3] & BATCH_CAPABLE) != 0;
+        int seqNum = frame != null && frame.length >= 3 ? frame[2] & 0xFF : 0;
+        printDebug("receive : ACK");
+        session.ackMonitor.acknowledge(seqNum != 0 ? seqNum : session.sequenceNumber);
+        if (session.flushDue) flushLater(session);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean receive(byte[] frame, long peerAddress) {
+        ChatSession session = getSession(peerAddress);
         if (frame == null) {
-            print("receive : ACK");
+            printDebug("receive : ACK");
 
-            ackCheckList.add(true);
+            session.ackMonitor.acknowledge(session.sequenceNumber);
+            if (session.flushDue) flushLater(session);
             return true;
         }
 
-        print("receive : " + frame.toString());
+        getMetrics().received(frame.length);
+        if (isDebugEnabled()) printDebug("receive : " + frame.length + " bytes");
         printHex(frame, frame.length);
 
+        int seqNum = frame[3] & SEQUENCE_MASK;
+        if ((frame[3] & SEQUENCE_START) != 0) {
+            receiveStart(session, frame, seqNum);
+            sendACK(peerAddress, seqNum);
+            return true;
+        }
+
+        // Retransmitted Copy of Frame Already Taken, Its ACK Was Lost
+        // Copy Resent Just as ACK Arrived May Trail Next Frame, Then It is One Sequence Number Behind
+        int lastSeqNum = session.receivedSequenceNumber;
+        if (seqNum != 0 && lastSeqNum != 0 && (seqNum == lastSeqNum || seqNum % SEQUENCE_MASK + 1 == lastSeqNum)) {
+            getMetrics().dropped();
+            sendACK(peerAddress, seqNum);
+            return true;
+        }
+        session.receivedSequenceNumber = seqNum;
+
         byte[] dataArray;
         int dataType = (byte) (frame[2] & 0xFF);
 
@@ -143,41 +371,95 @@ public class ChatAppLayer extends BaseLayer {
                 getUpperLayer(0).receive(dataArray, "ChatApp");
                 break;
             case 0x01:
-                fragBytes = new byte[byte2ToInteger(frame[0], frame[1])];
-                fragCount = 1;
+                // Fragments Placed by Running Offset, Sender Picks Fragment Size
+                if (session.fragBytes != null) getMetrics().addReassemblyBytes(-session.fragBytes.length); // Unfinished Message
+                session.fragBytes = new byte[byte2ToInteger(frame[0], frame[1])];
+                getMetrics().addReassemblyBytes(session.fragBytes.length);
                 dataArray = removeHeader(frame, frame.length);
-                System.arraycopy(dataArray, 0, fragBytes, 0, MTU);
+                System.arraycopy(dataArray, 0, session.fragBytes, 0, dataArray.length);
+                session.fragOffset = dataArray.length;
                 break;
             case 0x02:
                 dataArray = removeHeader(frame, frame.length);
-                System.arraycopy(dataArray, 0, fragBytes, fragCount * MTU, MTU);
-                fragCount++;
+                System.arraycopy(dataArray, 0, session.fragBytes, session.fragOffset, dataArray.length);
+                session.fragOffset += dataArray.length;
                 break;
             case 0x03:
                 dataArray = removeHeader(frame, frame.length);
-                System.arraycopy(dataArray, 0, fragBytes, fragCount * MTU, byte2ToInteger(frame[0], frame[1]));
-                fragCount++;
-                getUpperLayer(0).receive(fragBytes, "ChatApp");
+                System.arraycopy(dataArray, 0, session.fragBytes, session.fragOffset, byte2ToInteger(frame[0], frame[1]));
+                session.fragOffset = 0;
+                getUpperLayer(0).receive(session.fragBytes, "ChatApp");
+                getMetrics().addReassemblyBytes(-session.fragBytes.length);
+                session.fragBytes = null;
+                break;
+            case 0x04:
+                // Coalesced Small Messages, Each Behind Two-byte Length, Delivered One by One
+                int end = HEADER_LENGTH + byte2ToInteger(frame[0], frame[1]); // Legacy Framing Leaves Padding Behind
+                if (end > frame.length) {
+                    printError("truncated batch");
+                    return false;
+                }
+                for (int index = HEADER_LENGTH; index + 2 <= end; ) {
+                    int length = byte2ToInteger(frame[index], frame[index + 1]);
+                    index += 2;
+                    if (index + length > end) {
+                        printError("truncated message in batch");
+                        break;
+                    }
+                    getUpperLayer(0).receive(Arrays.copyOfRange(frame, index, index + length), "ChatApp");
+                    index += length;
+                }
                 break;
             default:
                 printError("undefined type");
                 return false;
         }
 
-        print("send ACK");
-        getUnderLayer().send(null, 0, "ChatApp");
+        sendACK(peerAddress, seqNum);
         return true;
     }
 
+    private static class ChatSession {
+
+        final long peerAddress;
+        final ChatAppHeader header = new ChatAppHeader();
+        final ACKMonitor ackMonitor;
+        final ReentrantLock sendLock = new ReentrantLock();
+        byte[] batchArray = new byte[0]; // Coalesced Messages Not Yet Sent, Guarded by Send Lock
+        int batchLength = 0;
+        TimerWheel.Timeout flushTimeout = null;
+        volatile boolean flushDue = false; // Set by Timer, Acted on by Whoever Gets Send Lock With Nothing in Flight
+        volatile boolean peerBatching = false;
+        final Object resendLock = new Object(); // Sender Fills, Retransmitter Reads
+        final ChatAppHeader resendHeader = new ChatAppHeader();
+        byte[] resendArray = new byte[0]; // Payload of Frame in Flight, Guarded by Resend Lock
+        int resendLength = 0;
+        int resendSequenceNumber = 0;
+        byte[] fragBytes = null;
+        int fragOffset = 0;
+        volatile int peerFrameSize = 0;
+        final long sessionId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE); // Tells Peer This Run From Earlier Ones
+        volatile int sequenceNumber = 0; // Last Sent
+        boolean started = false; // Start Frame Sent, Guarded by Send Lock
+        int receivedSequenceNumber = 0; // Last Taken From Peer
+        long peerSessionId = 0;
+
+        public ChatSession(long peerAddress, LayerMetrics metrics) {
+            this.peerAddress = peerAddress;
+            this.ackMonitor = new ACKMonitor(metrics);
+        }
+
+    }
+
     private static class ChatAppHeader {
 
-        byte[] totalLength;
+        int totalLength;
         byte type;
         byte unused;
         byte[] data;
 
         public ChatAppHeader() {
-            this.totalLength = new byte[2];
+            this.totalLength = 0;
             this.type = 0x00;
             this.unused = 0x00;
             this.data = null;
@@ -0,0 +1,209 @@
+package datacomm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressionLayer extends BaseLayer {
+
+    private static final int HEADER_LENGTH = 3;
+    private static final int DATA_TYPE = 0x20A0; // EtherType
+    private static final int ACK_TYPE = 0x20A1;
+    private static final int FLAG_COMPRESSED = 0x01;
+    private static final int MIN_LENGTH = 128; // Smaller Frames are Sent Raw Without Trying
+    private static final int PROBE_INTERVAL = 64; // Frames Sent Raw After Poor Ratio Before Trying Again
+    private static final double MAX_RATIO = 0.9; // Compressed Size Must Save at Least 10%
+
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<Long, SendOrder> sendOrderList = new ConcurrentHashMap<>(); // Keyed by Peer Address
+    private final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(Deflater::new);
+    private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+    private final ThreadLocal<byte[]> outputBuffer = ThreadLocal.withInitial(() -> new byte[FrameBuffer.DEFAULT_FRAME_SIZE]);
+    private final AtomicInteger skipCount = new AtomicInteger();
+    private final AtomicLong compressedCount = new AtomicLong();
+    private final AtomicLong rawCount = new AtomicLong();
+    private final AtomicLong inputLength = new AtomicLong();
+    private final AtomicLong outputLength = new AtomicLong();
+
+    public CompressionLayer(String layerName) {
+        this(layerName, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CompressionLayer(String layerName, int parallelism) {
+        super(layerName);
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @Override
+    public int getDataType() {
+        return DATA_TYPE;
+    }
+
+    @Override
+    public int getACKType() {
+        return ACK_TYPE;
+    }
+
+    @Override
+    public int getMTU() {
+        return super.getMTU() - HEADER_LENGTH;
+    }
+
+    public long getCompressedCount() {
+        return compressedCount.get();
+    }
+
+    public long getRawCount() {
+        return rawCount.get();
+    }
+
+    public double getRatio() {
+        // Bytes Handed Down Over Bytes Received From Above
+        long input = inputLength.get();
+        return input == 0 ? 1.0 : (double) outputLength.get() / input;
+    }
+
+    private byte[] getOutputBuffer(int length) {
+        byte[] output = outputBuffer.get();
+        if (output.length < length) {
+            output = new byte[length];
+            outputBuffer.set(output);
+        }
+        return output;
+    }
+
+    private int deflate(byte[] frame, byte[] output, int limit) {
+        // Returns Compressed Length, -1 When Output Would Not Fit in Limit
+        Deflater deflater = this.deflater.get();
+        deflater.reset();
+        deflater.setInput(frame, 0, frame.length);
+        deflater.finish();
+        int length = deflater.deflate(output, 0, limit);
+        return deflater.finished() ? length : -1;
+    }
+
+    private byte[] inflate(byte[] frame) {
+        byte[] dataArray = new byte[((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF)];
+        Inflater inflater = this.inflater.get();
+        inflater.reset();
+        inflater.setInput(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+        try {
+            if (inflater.inflate(dataArray) == dataArray.length && inflater.finished()) return dataArray;
+            printError("decompressed length mismatch");
+        } catch (DataFormatException e) {
+            printError("corrupt compressed frame");
+        }
+        return null;
+    }
+
+    private FrameBuffer compress(FrameBuffer frameBuffer) {
+        byte[] frame = frameBuffer.toByteArray();
+        int length = -1;
+        byte[] output = null;
+
+        // Incompressible Data Switches to Raw, Probed Again Every PROBE_INTERVAL Frames
+        if (frame.length >= MIN_LENGTH && skipCount.getAndUpdate(count -> count > 0 ? count - 1 : 0) == 0) {
+            output = getOutputBuffer(frame.length);
+            length = deflate(frame, output, (int) (frame.length * MAX_RATIO));
+            if (length < 0) skipCount.set(PROBE_INTERVAL);
+        }
+
+        if (length >= 0) {
+            long peerAddress = frameBuffer.getPeerAddress();
+            frameBuffer.reset();
+            frameBuffer.setPeerAddress(peerAddress);
+            frameBuffer.put(output, 0, length);
+            compressedCount.incrementAndGet();
+        } else {
+            rawCount.incrementAndGet();
+        }
+        inputLength.addAndGet(frame.length);
+        outputLength.addAndGet(frameBuffer.length() + HEADER_LENGTH);
+
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.putByte(index, length >= 0 ? FLAG_COMPRESSED : 0x00);
+        frameBuffer.putShort(index + 1, frame.length);
+        return frameBuffer;
+    }
+
+    private void emit(SendOrder sendOrder, long ticket, FrameBuffer frameBuffer) {
+        // Finished Frame Waits for Those Taken Before It, Whoever Fills Gap Sends Run Behind It
+        synchronized (sendOrder) {
+            sendOrder.doneList.put(ticket, frameBuffer);
+            while (sendOrder.doneList.containsKey(sendOrder.nextTicket)) {
+                frameBuffer = sendOrder.doneList.remove(sendOrder.nextTicket++);
+                if (frameBuffer == null) continue; // Compression Failed, Slot Skipped
+                getMetrics().sent(frameBuffer.length());
+                getUnderLayer().send(frameBuffer, getLayerName());
+            }
+        }
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        // Frames are Compressed in Parallel on Pool, Window Above Bounds Frames in Flight
+        // Ticket Taken in Caller's Order, Peer Sees Frames in Order They Were Sent
+        SendOrder sendOrder = sendOrderList.computeIfAbsent(frameBuffer.getPeerAddress(), peerAddress -> new SendOrder());
+        long ticket = sendOrder.ticketCount.getAndIncrement();
+        pool.execute(() -> {
+            FrameBuffer compressed = null;
+            try {
+                compressed = compress(frameBuffer);
+            } finally {
+                emit(sendOrder, ticket, compressed);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean sendACK(FrameBuffer frameBuffer, String layerName) {
+        // ACKs Pass Through Without Header
+        return getUnderLayer().sendACK(frameBuffer, getLayerName());
+    }
+
+    @Override
+    public boolean receive(byte[] frame) {
+        return receive(frame, getDefaultPeerAddress());
+    }
+
+    @Override
+    public boolean receive(byte[] frame, long peerAddress) {
+        if (frame == null || frame.length < HEADER_LENGTH) {
+            printError("null frame");
+            return false;
+        }
+
+        getMetrics().received(frame.length);
+        if ((frame[0] & FLAG_COMPRESSED) == 0)
+            return getUpperLayer(0).receive(Arrays.copyOfRange(frame, HEADER_LENGTH, frame.length), peerAddress);
+
+        // Frames Inflate in Parallel, Upper Layer Reassembles Out of Order
+        pool.execute(() -> {
+            byte[] dataArray = inflate(frame);
+            if (dataArray != null) getUpperLayer(0).receive(dataArray, peerAddress);
+            else getMetrics().dropped();
+        });
+        return true;
+    }
+
+    @Override
+    public boolean receiveACK(byte[] frame, long peerAddress) {
+        return getUpperLayer(0).receiveACK(frame, peerAddress);
+    }
+
+    private static class SendOrder {
+
+        final AtomicLong ticketCount = new AtomicLong(); // Next Ticket Handed to Sender
+        final HashMap<Long, FrameBuffer> doneList = new HashMap<>(); // Compressed, Waiting for Turn
+        long nextTicket = 0; // Next Ticket Sent Down, Guarded by This With Done List
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package datacomm;
+
+public class CongestionWindow {
+
+    private static final double INITIAL_WINDOW = 4; // Frames
+    private static final double MIN_WINDOW = 2;
+
+    private double window = INITIAL_WINDOW;
+    private double threshold = Double.MAX_VALUE; // Slow Start Below, Additive Increase Above
+    private double maxWindow = Double.MAX_VALUE;
+    private long recoveryTime = System.nanoTime(); // Losses of Frames Sent Before This Were Already Answered
+    private long lossCount = 0;
+    private double priorWindow = 0; // Before Last Reduction, 0 Once Undone
+    private double priorThreshold = 0;
+    private int timeoutCount = 0; // Timeouts Since Last Reduction
+    private int spuriousCount = 0; // Of Which Original Frame Was ACKed
+
+    public synchronized void setMaxWindow(int maxWindow) {
+        // Growing Past Sender's Own Limit Would Only Delay Reaction to Loss
+        this.maxWindow = Math.max(1, maxWindow);
+        window = Math.min(window, this.maxWindow);
+    }
+
+    public synchronized void onACK() {
+        // One Frame per ACK in Slow Start, One Frame per Window Afterwards
+        if (window < threshold) window += 1;
+        else window += 1 / window;
+        window = Math.min(window, maxWindow);
+    }
+
+    public synchronized void onLoss(long sendTime) {
+        // Halved Once per Window, Rest of Same Burst Was Sent Before Reduction
+        if (sendTime - recoveryTime < 0) {
+            timeoutCount++;
+            return;
+        }
+        lossCount++;
+        priorWindow = window;
+        priorThreshold = threshold;
+        timeoutCount = 1;
+        spuriousCount = 0;
+        threshold = Math.max(MIN_WINDOW, window / 2);
+        window = threshold;
+        recoveryTime = System.nanoTime();
+    }
+
+    public synchronized void undo() {
+        // Timeout Turned Out Spurious, Original Frame Was ACKed
+        // Reduction Stands if Any Frame of Same Burst Was Really Lost
+        if (priorWindow == 0 || ++spuriousCount < timeoutCount) return;
+        window = Math.max(window, priorWindow);
+        threshold = Math.max(threshold, priorThreshold);
+        priorWindow = 0;
+    }
+
+    public synchronized int getWindow() {
+        return (int) window;
+    }
+
+    public synchronized long getLossCount() {
+        return lossCount;
+    }
+
+}
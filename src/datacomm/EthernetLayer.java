@@ -1,10 +1,23 @@
 package datacomm;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class EthernetLayer extends BaseLayer {
 
-    private static final int MTU = 1500;
+    private static final long BROADCAST_ADDRESS = 0xFFFFFFFFFFFFL;
+    private static final int LEGACY_HEADER_LENGTH = 54; // Ethernet & Empty IP & TCP Header
+    private static final int COMPACT_HEADER_LENGTH = 17; // Ethernet & Version & Payload Length
+    private static final int COMPACT_VERSION = 0x01;
 
+    private final Protocol[] protocolTable = new Protocol[0x10000]; // Indexed by EtherType
+    private final HashMap<String, Protocol> protocolMap = new HashMap<>(); // Keyed by Layer Name
+    private final ArrayList<Protocol> protocolList = new ArrayList<>();
+    private final ConcurrentHashMap<Long, Neighbor> neighborTable = new ConcurrentHashMap<>(); // Keyed by Packed MAC
     private EthernetHeader header;
+    private volatile boolean compactEnabled = true;
 
     public EthernetLayer(String layerName) {
         super(layerName);
@@ -15,103 +28,261 @@ public class EthernetLayer extends BaseLayer {
         header = new EthernetHeader();
     }
 
-    private byte[] createFrame(byte[] dataArray, int dataLength) {
-        byte[] frame = (dataLength + 40 < 46) ? new byte[60] : new byte[dataLength + 54]; // Minimum Packet Size w/ IP & TCP Header
-        System.arraycopy(header.dst.addr, 0, frame, 0, 6);
-        System.arraycopy(header.src.addr, 0, frame, 6, 6);
-        System.arraycopy(header.type, 0, frame, 12, 2);
-        if (dataArray != null)
-            System.arraycopy(dataArray, 0, frame, 54, dataLength); // Skip IP & TCP Header
-        return frame;
+    private void createFrame(FrameBuffer frameBuffer, int type) {
+        // Header Written in Place in Front of Payload
+        long dst = frameBuffer.getPeerAddress() == 0 ? header.dst : frameBuffer.getPeerAddress();
+        Neighbor neighbor = neighborTable.get(dst);
+        if (compactEnabled && neighbor != null && neighbor.version >= COMPACT_VERSION) {
+            // Peer Reads Compact Frames, Length Keeps Minimum Frame Padding Out of Payload
+            int length = frameBuffer.length();
+            int index = frameBuffer.prepend(3);
+            frameBuffer.putByte(index, COMPACT_VERSION);
+            frameBuffer.putShort(index + 1, length);
+        } else {
+            int index = frameBuffer.prepend(40);
+            frameBuffer.fill(index, 40, (byte) 0x00); // Empty IP & TCP Header
+            if (compactEnabled) frameBuffer.putByte(index + 1, COMPACT_VERSION); // Ignored by Legacy Peers
+        }
+        int index = frameBuffer.prepend(14);
+        frameBuffer.putShort(index, (int) (dst >>> 32));
+        frameBuffer.putInt(index + 2, (int) dst);
+        frameBuffer.putShort(index + 6, (int) (header.src >>> 32));
+        frameBuffer.putInt(index + 8, (int) header.src);
+        frameBuffer.putShort(index + 12, type);
+        int padding = 60 - frameBuffer.length(); // Minimum Packet Size
+        if (padding > 0) frameBuffer.fill(frameBuffer.append(padding), padding, (byte) 0x00);
     }
 
-    private byte[] removeHeader(byte[] frame, int frameLength) {
-        byte[] dataArray = new byte[frameLength - 54]; // Remove Ethernet & IP & TCP Header
-        System.arraycopy(frame, 54, dataArray, 0, frameLength - 54);
+    private byte[] removeHeader(byte[] frame, Neighbor neighbor) {
+        // Byte 14 is Zero in Legacy Frames, Version in Compact Frames
+        int version = frame[14] & 0xFF;
+        int offset;
+        int length;
+        if (version == 0x00 && frame.length >= LEGACY_HEADER_LENGTH) {
+            setVersion(neighbor, Math.min(frame[15] & 0xFF, COMPACT_VERSION)); // Capability Advertised in Empty IP Header
+            offset = LEGACY_HEADER_LENGTH;
+            length = frame.length - LEGACY_HEADER_LENGTH;
+        } else if (version == COMPACT_VERSION && frame.length >= COMPACT_HEADER_LENGTH) {
+            setVersion(neighbor, COMPACT_VERSION);
+            offset = COMPACT_HEADER_LENGTH;
+            length = byte2ToInteger(frame[15], frame[16]);
+            if (offset + length > frame.length) {
+                printError("truncated frame");
+                return null;
+            }
+        } else {
+            printError("unsupported frame version " + version);
+            return null;
+        }
+
+        byte[] dataArray = new byte[length];
+        System.arraycopy(frame, offset, dataArray, 0, length);
         return dataArray;
     }
 
-    private byte[] integerToByte2(int value) {
-        byte[] byteBuffer = new byte[2];
-        byteBuffer[0] |= (byte) ((value & 0xFF00) >> 8);
-        byteBuffer[1] |= (byte) (value & 0xFF);
-        return byteBuffer;
+    private void setVersion(Neighbor neighbor, int version) {
+        if (neighbor.version == version) return;
+        neighbor.version = version;
+        print((version >= COMPACT_VERSION ? "compact" : "legacy") + " framing with " + neighbor);
+    }
+
+    public void setCompactEnabled(boolean compactEnabled) {
+        // Disabled Side Neither Sends Nor Advertises Compact Frames
+        this.compactEnabled = compactEnabled;
+    }
+
+    public boolean isCompactEnabled() {
+        return compactEnabled;
     }
 
     private int byte2ToInteger(byte value1, byte value2) {
         return ((value1 & 0xFF) << 8) | (value2 & 0xFF);
     }
 
+    public static long toAddress(byte[] address) {
+        return toAddress(address, 0);
+    }
+
+    private static long toAddress(byte[] frame, int index) {
+        // MAC Packed Into Low 48 Bits
+        long address = 0;
+        for (int offset = 0; offset < 6; offset++)
+            address = (address << 8) | (frame[index + offset] & 0xFF);
+        return address;
+    }
+
+    public static String formatAddress(long address) {
+        return String.format("%02X-%02X-%02X-%02X-%02X-%02X",
+                (address >>> 40) & 0xFF, (address >>> 32) & 0xFF, (address >>> 24) & 0xFF,
+                (address >>> 16) & 0xFF, (address >>> 8) & 0xFF, address & 0xFF);
+    }
+
+    public static long parseAddress(String address) {
+        // Inverse of formatAddress, Colons Accepted as Well
+        String[] addressList = address.trim().split("[-:]");
+        if (addressList.length != 6) throw new IllegalArgumentException("bad MAC address " + address);
+        long value = 0;
+        for (String octet : addressList)
+            value = (value << 8) | Integer.parseInt(octet, 16);
+        return value;
+    }
+
     public void setDestinationAddress(byte[] destinationAddress) {
-        header.dst.addr = destinationAddress;
+        setDestinationAddress(toAddress(destinationAddress));
     }
 
-    public void setSourceAddress(byte[] sourceAddress) {
-        header.src.addr = sourceAddress;
+    public void setDestinationAddress(long destinationAddress) {
+        // Default Peer, Can Change While Running
+        header.dst = destinationAddress;
+        addNeighbor(destinationAddress);
     }
 
-    private boolean isMyPacket(byte[] frame) {
-        for (int index = 0; index < 6; index++)
-            if (header.src.addr[index] != frame[index + 6]) return false;
-        return true;
+    @Override
+    public int getMTU() {
+        return super.getMTU() - 40; // Empty IP & TCP Header
     }
 
-    private boolean isBroadcast(byte[] frame) {
-        for (int index = 0; index < 6; index++)
-            if (frame[index] != (byte) 0xFF) return false;
-        return (frame[12] == (byte) 0xFF && frame[13] == (byte) 0xFF);
+    @Override
+    public long getDefaultPeerAddress() {
+        return header.dst;
     }
 
-    private boolean isMine(byte[] frame) {
-        for (int index = 0; index < 6; index++)
-            if (header.src.addr[index] != frame[index]) return false;
-        return true;
+    public Neighbor addNeighbor(long address) {
+        Neighbor neighbor = neighborTable.get(address);
+        if (neighbor != null) return neighbor;
+        Neighbor newNeighbor = new Neighbor(address);
+        neighbor = neighborTable.putIfAbsent(address, newNeighbor);
+        if (neighbor != null) return neighbor;
+        print("neighbor added : " + formatAddress(address));
+        return newNeighbor;
+    }
+
+    public Neighbor getNeighbor(long address) {
+        return neighborTable.get(address);
+    }
+
+    public boolean removeNeighbor(long address) {
+        return neighborTable.remove(address) != null;
+    }
+
+    public ArrayList<Neighbor> getNeighborList() {
+        return new ArrayList<>(neighborTable.values());
     }
 
     @Override
-    public boolean send(byte[] dataArray, int dataLength, String layerName) {
-//        print("send : " + String.format("%s, %d, %s", dataArray == null ? "null" : dataArray.toString(), dataLength, layerName));
-//        if (dataArray != null) printHex(dataArray, dataLength);
+    public void setUpperLayer(LayerInterface upperLayer) {
+        super.setUpperLayer(upperLayer);
+        // Upper Layers Declare Their Own EtherTypes When Linked
+        if (upperLayer != null && upperLayer.getDataType() >= 0)
+            registerProtocol(upperLayer, upperLayer.getDataType(), upperLayer.getACKType());
+    }
+
+    public synchronized boolean registerProtocol(LayerInterface layer, int dataType, int ackType) {
+        if (!isFreeType(dataType) || (ackType >= 0 && (ackType == dataType || !isFreeType(ackType)))) {
+            printError(String.format("cannot register %s : type %04X/%04X in use", layer.getLayerName(), dataType, ackType));
+            return false;
+        }
+
+        Protocol protocol = new Protocol(layer, dataType, ackType);
+        protocolTable[dataType] = protocol;
+        if (ackType >= 0) protocolTable[ackType] = protocol;
+        protocolMap.put(layer.getLayerName(), protocol);
+        protocolList.add(protocol);
+        updateFilter();
+        return true;
+    }
+
+    private boolean isFreeType(int type) {
+        return type >= 0x0600 && type <= 0xFFFF && protocolTable[type] == null;
+    }
+
+    public void setSourceAddress(byte[] sourceAddress) {
+        setSourceAddress(toAddress(sourceAddress));
+    }
+
+    public void setSourceAddress(long sourceAddress) {
+        header.src = sourceAddress;
+        updateFilter();
+    }
 
+    private synchronized void updateFilter() {
+        // Kernel-side Version of isMine, isMyPacket and EtherType Checks in receive
+        if (protocolList.isEmpty()) return;
+        String address = formatAddress(header.src).replace('-', ':');
+        StringBuilder filterBuilder = new StringBuilder();
+        filterBuilder.append("ether dst ").append(address).append(" and not ether src ").append(address).append(" and (");
+        for (int index = 0; index < protocolList.size(); index++) {
+            Protocol protocol = protocolList.get(index);
+            if (index > 0) filterBuilder.append(" or ");
+            filterBuilder.append(String.format("ether proto 0x%04X", protocol.dataType));
+            if (protocol.ackType >= 0) filterBuilder.append(String.format(" or ether proto 0x%04X", protocol.ackType));
+        }
+        filterBuilder.append(")");
+        setFilter(filterBuilder.toString());
+    }
+
+    private boolean isMyPacket(long src) {
+        return src == header.src;
+    }
+
+    private boolean isBroadcast(long dst, int type) {
+        return dst == BROADCAST_ADDRESS && type == 0xFFFF;
+    }
+
+    private boolean isMine(long dst) {
+        return dst == header.src;
+    }
+
+    private int getType(String layerName, boolean isACK) {
         if (layerName == null) {
             printError("layer name is null");
+            return -1;
+        }
+        Protocol protocol = protocolMap.get(layerName);
+        if (protocol == null) {
+            printError("undefined layer " + layerName);
+            return -1;
+        }
+        return isACK ? protocol.ackType : protocol.dataType;
+    }
+
+    private boolean send(FrameBuffer frameBuffer, String layerName, boolean isACK) {
+        int type = getType(layerName, isACK);
+        if (type < 0) {
+            getMetrics().dropped();
+            frameBuffer.release();
             return false;
-        } else switch (layerName) {
-            case "ChatApp":
-                if (dataArray == null && dataLength == 0) {
-                    // ChatApp ACK
-                    // print("sending ChatApp ACK");
-                    header.type = integerToByte2(0x2081);
-                } else {
-                    // ChatApp Data
-                    // print("sending ChatApp Data");
-                    header.type = integerToByte2(0x2080);
-                }
-                break;
-            case "FileApp":
-                if (dataArray == null && dataLength == 0) {
-                    // FileApp ACK
-                    // print("sending FileApp ACK");
-                    header.type = integerToByte2(0x2091);
-                } else {
-                    // FileApp Data
-                    // print("sending FileApp Data");
-                    header.type = integerToByte2(0x2090);
-                }
-                break;
-            default:
-                printError("undefined layer " + layerName);
-                return false;
         }
 
-        byte[] frame = createFrame(dataArray, dataLength);
+        createFrame(frameBuffer, type);
+        getMetrics().sent(frameBuffer.length());
+        return getUnderLayer().send(frameBuffer);
+    }
 
-//        print("send frame to under layer");
-//        if (layerName.equals("FileApp"))
-//            printHex(frame, frame.length);
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        return send(frameBuffer, layerName, false);
+    }
 
-        getUnderLayer().send(frame, frame.length);
-        return true;
+    @Override
+    public boolean sendACK(FrameBuffer frameBuffer, String layerName) {
+        return send(frameBuffer, layerName, true);
+    }
+
+    @Override
+    public boolean send(byte[] dataArray, int dataLength, String layerName) {
+        FrameBuffer frameBuffer = getFrameBuffer();
+        if (dataArray != null) frameBuffer.put(dataArray, 0, dataLength);
+
+        // Empty Frame is ACK
+        return send(frameBuffer, layerName, dataArray == null && dataLength == 0);
+    }
+
+    @Override
+    public boolean sendACK(byte[] dataArray, int dataLength, String layerName) {
+        FrameBuffer frameBuffer = getFrameBuffer();
+        if (dataArray != null) frameBuffer.put(dataArray, 0, dataLength);
+        return send(frameBuffer, layerName, true);
     }
 
     @Override
@@ -119,54 +290,106 @@ public class EthernetLayer extends BaseLayer {
 
         byte[] dataArray;
         int dataType = byte2ToInteger(frame[12], frame[13]);
+        long dst = toAddress(frame, 0);
+        long src = toAddress(frame, 6);
 
-        if (!isMyPacket(frame) && !isBroadcast(frame) && isMine(frame)) {
-            dataArray = removeHeader(frame, frame.length);
-            switch (dataType) {
-                case 0x2080:
-                    getUpperLayer("ChatApp").receive(dataArray);
-                    break;
-                case 0x2081:
-                    getUpperLayer("ChatApp").receive(null);
-                    break;
-                case 0x2090:
-                    getUpperLayer("FileApp").receive(dataArray);
-                    break;
-                case 0x2091:
-                    getUpperLayer("FileApp").receive(null);
-                    break;
-                default:
-                    if (dataType != 0x0800) printError("undefined type " + String.format("%04X", dataType));
-                    return false;
+        if (!isMyPacket(src) && !isBroadcast(dst, dataType) && isMine(dst)) {
+            getMetrics().received(frame.length);
+            Protocol protocol = protocolTable[dataType];
+            if (protocol == null) {
+                getMetrics().unknownType();
+                if (dataType != 0x0800) printError("undefined type " + String.format("%04X", dataType));
+                return false;
             }
+
+            // Peers are Learned From Traffic
+            Neighbor neighbor = neighborTable.get(src);
+            if (neighbor == null) neighbor = addNeighbor(src);
+            neighbor.update(frame.length);
+
+            dataArray = removeHeader(frame, neighbor);
+            if (dataArray == null) {
+                getMetrics().dropped();
+                return false;
+            }
+            if (dataType == protocol.ackType) protocol.layer.receiveACK(dataArray, src);
+            else protocol.layer.receive(dataArray, src);
             return true;
         }
         return false;
     }
 
-    private static class EthernetHeader {
+    public static class Neighbor {
 
-        EthernetAddress dst;
-        EthernetAddress src;
-        byte[] type;
-        byte[] data;
+        private final long address;
+        private final AtomicLong frameCount = new AtomicLong();
+        private final AtomicLong byteCount = new AtomicLong();
+        private volatile long lastSeen = 0;
+        private volatile int version = 0; // Highest Frame Version Peer Reads
 
-        public EthernetHeader() {
-            dst = new EthernetAddress();
-            src = new EthernetAddress();
-            type = new byte[2];
-            data = null;
+        public Neighbor(long address) {
+            this.address = address;
         }
 
-        private static class EthernetAddress {
+        private void update(int frameLength) {
+            frameCount.incrementAndGet();
+            byteCount.addAndGet(frameLength);
+            lastSeen = System.currentTimeMillis();
+        }
 
-            byte[] addr = new byte[6];
+        public long getAddress() {
+            return address;
+        }
 
-            public EthernetAddress() {
-                for (int index = 0; index < 6; index++)
-                    addr[index] = (byte) 0x00;
-            }
+        public long getFrameCount() {
+            return frameCount.get();
+        }
+
+        public long getByteCount() {
+            return byteCount.get();
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return formatAddress(address);
+        }
+
+    }
+
+    private static class Protocol {
+
+        final LayerInterface layer;
+        final int dataType;
+        final int ackType;
+
+        public Protocol(LayerInterface layer, int dataType, int ackType) {
+            this.layer = layer;
+            this.dataType = dataType;
+            this.ackType = ackType;
+        }
+
+    }
 
+    private static class EthernetHeader {
+
+        volatile long dst;
+        volatile long src;
+        int type;
+        byte[] data;
+
+        public EthernetHeader() {
+            dst = 0;
+            src = 0;
+            type = 0x0000;
+            data = null;
         }
 
     }
@@ -1,257 +1,709 @@
 package datacomm;
 
-import javax.swing.*;
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
 public class FileAppLayer extends BaseLayer {
 
-    private static final int MTU = 1448;
-
-    private final ArrayList<Boolean> ackCheckList = new ArrayList<>();
-    private final ArrayList<Boolean> responseList = new ArrayList<>();
-    private final HashMap<Integer, byte[]> dataByteList = new HashMap<>();
-    private FileAppHeader header;
-    private byte[] fragBytes = null;
-    private String filePath = null;
+    private static final int HEADER_LENGTH = 32;
+    private static final int DATA_TYPE = 0x2090; // EtherType
+    private static final int ACK_TYPE = 0x2091;
+    private static final int CHUNK_FRAGMENTS = 64; // File Read-ahead Unit in Fragments
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final int BASE_FRAGMENT_SIZE = 1024; // Used Until Peer Tells Its Fragment Size, Fits Any Link
+    private static final int DEFAULT_WINDOW_SIZE = 256 * BASE_FRAGMENT_SIZE; // Upper Bound on Congestion Window, in Bytes Like Receive Window
+    private static final int DEFAULT_RECEIVE_BUFFER = 1 << 20; // Bytes Held Out of Order per Transfer Before Window Shrinks
+    private static final long RESPONSE_TIMEOUT = 120; // Seconds
+    private static final long SESSION_LINGER = 30; // Seconds Finished Session Answers Sender's Probes
+    private static final int ACK_REQUEST = 0x01; // Flag, Sender Stalls Until This Fragment is ACKed
+    private static final int ACK_INTERVAL = 16; // In-order Fragments per ACK
+    private static final long ACK_DELAY = 2; // Milliseconds Fragment Waits for Company Before ACK Goes Alone
+    private static final int MAX_SACK_LENGTH = 64; // Bitmap Bytes, Fragments Past First Gap Reported in ACK
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DEFAULT_PROGRESS_RATE = 20; // Events per Second per Transfer
+
+    // Random Start, Restarted Sender Does Not Reuse IDs Peer Still Lingers On and Get Their Old Answers
+    private final AtomicInteger transferIdCounter = new AtomicInteger(ThreadLocalRandom.current().nextInt());
+    private final ConcurrentHashMap<Integer, SendSession> sendSessionMap = new ConcurrentHashMap<>(); // Keyed by Transfer ID
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Integer, ReceiveSession>> receiveSessionMap = new ConcurrentHashMap<>(); // Keyed by Peer, Transfer ID
+    private final ConcurrentHashMap<Long, RTOEstimator> rtoEstimatorMap = new ConcurrentHashMap<>(); // Round Trips Carry Over Between Transfers
+    private final ThreadLocal<CRC32> crc32 = ThreadLocal.withInitial(CRC32::new); // Frames are Sealed on Sender Threads
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int receiveBufferSize = DEFAULT_RECEIVE_BUFFER;
+    private final CopyOnWriteArrayList<ProgressListener> progressListenerList = new CopyOnWriteArrayList<>();
+    private volatile FileListener fileListener = null;
+    private volatile int progressRate = DEFAULT_PROGRESS_RATE;
 
     public FileAppLayer(String layerName) {
         super(layerName);
-        resetHeader();
-        ackCheckList.add(true);
     }
 
-    private void resetHeader() {
-        header = new FileAppHeader();
+    @Override
+    public int getDataType() {
+        return DATA_TYPE;
     }
 
-    private byte[] createFrame(byte[] dataArray, int dataLength) {
-        byte[] frame = new byte[dataLength + 12];
-        System.arraycopy(header.totalLength, 0, frame, 0, 4);
-        System.arraycopy(header.fragType, 0, frame, 4, 2);
-        frame[6] = header.messageType;
-        frame[7] = header.unused;
-        System.arraycopy(header.sequenceNumber, 0, frame, 8, 4);
+    @Override
+    public int getACKType() {
+        return ACK_TYPE;
+    }
 
-        // Not ACK Frame
-        if (dataArray != null && dataLength > 0) System.arraycopy(dataArray, 0, frame, 12, dataLength);
+    @Override
+    public void setUpperLayer(LayerInterface upperLayer) {
+        // UI on Top Answers Receive Requests Unless a Listener Was Set
+        super.setUpperLayer(upperLayer);
+        if (fileListener == null && upperLayer instanceof FileListener) fileListener = (FileListener) upperLayer;
+        if (upperLayer instanceof ProgressListener) progressListenerList.addIfAbsent((ProgressListener) upperLayer);
+    }
 
-        return frame;
+    public void addProgressListener(ProgressListener progressListener) {
+        progressListenerList.addIfAbsent(progressListener);
     }
 
-    private byte[] removeHeader(byte[] frame, int frameLength) {
-        byte[] dataArray = new byte[frameLength - 12]; // Remove ChatApp Header
-        System.arraycopy(frame, 12, dataArray, 0, frameLength - 12);
-        return dataArray;
+    public void removeProgressListener(ProgressListener progressListener) {
+        progressListenerList.remove(progressListener);
     }
 
-    private byte[] integerToByte2(int value) {
-        byte[] byteBuffer = new byte[2];
-        byteBuffer[0] |= (byte) ((value & 0xFF00) >> 8);
-        byteBuffer[1] |= (byte) (value & 0xFF);
-        return byteBuffer;
+    public int getProgressRate() {
+        return progressRate;
     }
 
-    private int byte2ToInteger(byte value1, byte value2) {
-        return ((value1 & 0xFF) << 8) | (value2 & 0xFF);
+    public void setProgressRate(int progressRate) {
+        // Upper Bound on Events per Second per Transfer, Final Event Always Sent
+        this.progressRate = Math.max(1, progressRate);
     }
 
-    private byte[] integerToByte4(int value) {
-        byte[] byteBuffer = new byte[4];
-        for (int index = 0; index < 4; index++)
-            byteBuffer[index] |= (byte) ((value & (0xFF << ((3 - index) * 8))) >> ((3 - index) * 8));
-        return byteBuffer;
+    public void setFileListener(FileListener fileListener) {
+        this.fileListener = fileListener;
     }
 
-    private int byte4ToInteger(byte value1, byte value2, byte value3, byte value4) {
-        return ((value1 & 0xFF) << 24) | ((value2 & 0xFF) << 16) | ((value3 & 0xFF) << 8) | (value4 & 0xFF);
+    public FileListener getFileListener() {
+        return fileListener;
     }
 
-    /* Polling */
-    private void waitACK() {
-        // ACK Check
-        // TODO Change Polling to Event-driven
-        while (ackCheckList.size() <= 0) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        ackCheckList.remove(0);
+    public int getWindowSize() {
+        return windowSize;
     }
 
-    private boolean waitResponse() {
-        // Response Check
-        // TODO Change Polling to Event-driven
-        while (responseList.size() <= 0) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        return responseList.remove(0);
+    public void setWindowSize(int windowSize) {
+        // Bytes, Window Under One Fragment is Stop-and-Wait, Otherwise Congestion and Receive Windows Decide Below It
+        this.windowSize = Math.max(1, windowSize);
     }
 
-    private void fragmentedSend(byte[] dataArray, int dataLength) {
-        byte[] frame = new byte[MTU];
-        int seqNum = 1;
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
 
-        // First Send
-        print("send data #" + String.format("%04d", seqNum));
-        header.totalLength = integerToByte4(dataLength);
-        header.fragType = integerToByte2(0x01);
-        header.sequenceNumber = integerToByte4(seqNum);
-        seqNum++;
-        System.arraycopy(dataArray, 0, frame, 0, MTU);
-        frame = createFrame(frame, MTU);
-        getUnderLayer().send(frame, frame.length, getLayerName());
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = Math.max(1, receiveBufferSize);
+    }
 
-        int maxLength = dataLength / MTU;
-        ((UILayer) getUpperLayer(0)).updateProgress(seqNum / maxLength * 100);
+    private int getSendWindow(SendSession session) {
+        // Fragments in Flight Bounded by Both Network and Receiver
+        return Math.max(1, Math.min(session.congestionWindow.getWindow(), session.peerWindow));
+    }
 
-        // Next Send
-        header.totalLength = integerToByte4(MTU);
-        header.fragType = integerToByte2(0x02);
-        for (int index = 1; index < maxLength; index++) {
-            this.waitACK(); // Wait for Previous Send
-            print("send data #" + String.format("%04d", seqNum));
+    private long getReceiveWindow(ReceiveSession session) {
+        // Free Reassembly Space in Bytes, Never 0 Which Means Not Advertised
+        if (session == null) return receiveBufferSize;
+        return Math.max(1, receiveBufferSize - session.pendingBytes);
+    }
 
-            header.sequenceNumber = integerToByte4(seqNum);
-            seqNum++;
+    private void createFrame(FrameBuffer frameBuffer, FileAppHeader header) {
+        // Header Written in Place in Front of Payload
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.putLong(index, header.totalLength);
+        frameBuffer.putShort(index + 8, header.fragType);
+        frameBuffer.putByte(index + 10, header.messageType);
+        frameBuffer.putByte(index + 11, header.flags);
+        frameBuffer.putInt(index + 12, header.sequenceNumber);
+        frameBuffer.putLong(index + 16, header.offset);
+        frameBuffer.putInt(index + 24, header.transferId);
+        frameBuffer.putInt(index + 28, 0);
+        seal(frameBuffer, index);
+    }
 
-            if ((index + 1 == maxLength) && (dataLength % MTU == 0)) header.fragType = integerToByte2(0x02);
+    private void seal(FrameBuffer frameBuffer, int index) {
+        // CRC Over Whole FileApp Frame, Taken With CRC Field Zeroed
+        CRC32 crc32 = this.crc32.get();
+        crc32.reset();
+        frameBuffer.update(crc32);
+        frameBuffer.putInt(index + 28, (int) crc32.getValue());
+    }
 
-            System.arraycopy(dataArray, MTU * index, frame, 0, MTU);
-            frame = createFrame(frame, MTU);
+    private boolean isIntact(byte[] frame) {
+        int checksum = byte4ToInteger(frame[28], frame[29], frame[30], frame[31]);
+        Arrays.fill(frame, 28, 32, (byte) 0x00);
+        CRC32 crc32 = this.crc32.get();
+        crc32.reset();
+        crc32.update(frame, 0, frame.length);
+        return (int) crc32.getValue() == checksum;
+    }
 
-            getUnderLayer().send(frame, frame.length, getLayerName());
-            ((UILayer) getUpperLayer(0)).updateProgress((int) (((float) seqNum / (float) maxLength) * 100));
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " not available", e);
         }
+    }
 
-        // Last Send
-        header.fragType = integerToByte2(0x03);
-        if (dataLength % MTU != 0) {
-            print("send data #" + String.format("%04d", seqNum));
-            this.waitACK();
+    private int byte2ToInteger(byte value1, byte value2) {
+        return ((value1 & 0xFF) << 8) | (value2 & 0xFF);
+    }
+
+    private int byte4ToInteger(byte value1, byte value2, byte value3, byte value4) {
+        return ((value1 & 0xFF) << 24) | ((value2 & 0xFF) << 16) | ((value3 & 0xFF) << 8) | (value4 & 0xFF);
+    }
 
-            header.sequenceNumber = integerToByte4(seqNum);
+    private long byte8ToLong(byte[] dataArray, int index) {
+        long value = 0;
+        for (int offset = 0; offset < 8; offset++)
+            value = (value << 8) | (dataArray[index + offset] & 0xFF);
+        return value;
+    }
 
-            frame = new byte[dataLength % MTU];
-            header.totalLength = integerToByte4(dataLength % MTU);
+    private boolean waitACK(SendSession session, int windowLimit) {
+        // Wait Until In-flight Fragments Fit in Window
+        if (session.ackMonitor.waitACK(windowLimit)) return true;
+        printError("ACK timeout on transfer #" + session.transferId);
+        session.ackMonitor.clear();
+        return false;
+    }
 
-            System.arraycopy(dataArray, dataLength - (dataLength % MTU), frame, 0, dataLength % MTU);
-            frame = createFrame(frame, frame.length);
-            getUnderLayer().send(frame, frame.length, getLayerName());
-            ((UILayer) getUpperLayer(0)).updateProgress((seqNum / maxLength) * 100);
+    private boolean waitResponse(SendSession session) {
+        // Lost Response is Asked Again by Resending Message's Last Fragment, Receiver Answers Duplicates
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RESPONSE_TIMEOUT);
+        RTOEstimator rtoEstimator = session.ackMonitor.getRTOEstimator();
+        try {
+            long remaining;
+            for (int retries = 0; (remaining = deadline - System.nanoTime()) > 0; retries++) {
+                Boolean response = session.responseList.poll(Math.min(remaining, rtoEstimator.getTimeout(retries)), TimeUnit.NANOSECONDS);
+                if (response != null) return response;
+                probe(session);
+            }
+            printError("response timeout on transfer #" + session.transferId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return false;
     }
 
-    private void sendResponse(byte[] dataArray) {
-        JFileChooser fileChooser = ((UILayer) getUpperLayer(0)).openReceiveDialog(dataArray);
+    private void probe(SendSession session) {
+        byte[] messageArray = session.messageArray;
+        if (messageArray == null) return;
+        int fragIndex = Math.max(0, (messageArray.length - 1) / session.fragSize);
+        resend(session, session.header.messageType, fragIndex + 1, (long) fragIndex * session.fragSize);
+    }
 
-        filePath = fileChooser == null ? null : fileChooser.getSelectedFile().getAbsolutePath();
+    private boolean fragmentedSend(SendSession session, ByteBuffer dataBuffer, long offset, long totalLength) {
+        // Every Fragment Carries Total Length and Offset for Out-of-order Reassembly
+        FileAppHeader header = session.header;
+        header.totalLength = totalLength;
+        while (dataBuffer.hasRemaining()) {
+            int fragLength = Math.min(session.fragSize, dataBuffer.remaining());
+            int seqNum = (int) (offset / session.fragSize) + 1; // Fragment Index + 1, Receiver Tracks Fragments by It
+
+            if (!this.waitACK(session, getSendWindow(session))) return false; // Wait for Free Slot in Window
+            if (isDebugEnabled()) printDebug("send data #" + session.transferId + "." + String.format("%04d", seqNum));
+
+            header.fragType = offset == 0 ? 0x01 : (offset + fragLength == totalLength ? 0x03 : 0x02);
+            header.sequenceNumber = seqNum;
+            header.offset = offset;
+            header.flags = session.ackMonitor.size() + 1 >= getSendWindow(session) ? (byte) ACK_REQUEST : 0x00; // Window Full After This One
+
+            FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+            frameBuffer.put(dataBuffer, fragLength);
+            frameBuffer.setPeerAddress(session.peerAddress);
+            createFrame(frameBuffer, header);
+            expect(session, seqNum, offset);
+            getMetrics().sent(frameBuffer.length());
+            getUnderLayer().send(frameBuffer, getLayerName());
+
+            offset += fragLength;
+            ProgressTracker progressTracker = session.progressTracker;
+            if (progressTracker != null) progressTracker.update(offset);
+        }
+        return true;
+    }
 
-        header.totalLength = integerToByte4(0);
-        header.fragType = integerToByte2(0);
-        header.messageType = (byte) (fileChooser == null ? 0x03 : 0x02);
-        header.sequenceNumber = integerToByte4(0);
+    private void sendResponse(ReceiveSession session, byte[] dataArray) {
+        // Without Listener Nobody Can Pick a Destination, Transfer is Refused
+        FileListener fileListener = this.fileListener;
+        session.filePath = fileListener == null ? null : fileListener.acceptFile(session.peerAddress, dataArray);
+        session.accepted = session.filePath != null;
+        if (session.filePath == null) finishSession(session);
+        sendResponse(session, 0x00, session.accepted);
+    }
 
-        byte[] frame = createFrame(null, 0);
-        getUnderLayer().send(frame, frame.length, "FileApp");
+    private void sendResponse(ReceiveSession session, int messageType, boolean accepted) {
+        // Response is Header Only, Built Apart From Sender's Header
+        // Answered Message Type Lets Sender Drop Repeated Answers of Earlier Phase
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.fill(index, HEADER_LENGTH, (byte) 0x00);
+        frameBuffer.putLong(index, getUnderLayer().getMTU() - HEADER_LENGTH); // Largest Fragment This Side Takes
+        frameBuffer.putByte(index + 10, accepted ? 0x02 : 0x03);
+        frameBuffer.putByte(index + 11, messageType);
+        frameBuffer.putInt(index + 24, session.transferId);
+        seal(frameBuffer, index);
+        frameBuffer.setPeerAddress(session.peerAddress);
+        getMetrics().sent(frameBuffer.length());
+        getUnderLayer().send(frameBuffer, "FileApp");
     }
 
-    private void defragmentation() {
-        try {
-            int fragCount = dataByteList.size();
-            for (int index = 1; index <= fragCount; index++) {
-                byte[] buffer = dataByteList.get(index);
-                System.arraycopy(buffer, 0, fragBytes, MTU * (index - 1), index == fragCount ? buffer.length : MTU);
+    private void requestResend(long peerAddress, byte[] frame) {
+        // Corrupt Fragment is Not ACKed, Sender Resends Just This One
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.fill(index, HEADER_LENGTH, (byte) 0x00);
+        frameBuffer.putByte(index + 10, 0x05);
+        frameBuffer.putByte(index + 11, frame[10]); // Message Type of Corrupt Fragment
+        frameBuffer.put(index + 12, Arrays.copyOfRange(frame, 12, 28)); // Sequence Number, Offset, Transfer ID
+        seal(frameBuffer, index);
+        frameBuffer.setPeerAddress(peerAddress);
+        getMetrics().sent(frameBuffer.length());
+        getUnderLayer().send(frameBuffer, "FileApp");
+    }
+
+    private void resend(SendSession session, int messageType, int seqNum, long offset) {
+        // Only the Corrupt Fragment Goes Again, Rest of Window Keeps Flowing
+        FileChunkReader fileChunkReader = session.fileChunkReader;
+        byte[] messageArray = session.messageArray;
+        if (messageType == 0x01 ? fileChunkReader == null : messageArray == null) return;
+
+        long totalLength = messageType == 0x01 ? fileChunkReader.size() : messageArray.length;
+        if (offset < 0 || offset >= Math.max(1, totalLength)) return;
+        int fragLength = (int) Math.min(session.fragSize, totalLength - offset);
+
+        FileAppHeader header = new FileAppHeader();
+        header.totalLength = totalLength;
+        header.fragType = totalLength <= session.fragSize ? 0x00 : (offset == 0 ? 0x01 : (offset + fragLength == totalLength ? 0x03 : 0x02));
+        header.messageType = (byte) messageType;
+        header.flags = ACK_REQUEST; // Lost Tail of Window Would Otherwise Wait Out ACK Delay
+        header.sequenceNumber = seqNum;
+        header.offset = offset;
+        header.transferId = session.transferId;
+
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        if (messageType == 0x01) {
+            ByteBuffer dataBuffer = ByteBuffer.allocate(fragLength);
+            try {
+                fileChunkReader.read(dataBuffer, offset);
+            } catch (IOException e) {
+                printError("failed to read file");
+                frameBuffer.release();
+                return;
             }
-        } catch (ArrayIndexOutOfBoundsException | NullPointerException e) {
-            e.printStackTrace();
+            dataBuffer.flip();
+            frameBuffer.put(dataBuffer, dataBuffer.remaining());
+        } else {
+            frameBuffer.put(messageArray, (int) offset, fragLength);
         }
-//        dataByteList.forEach((K, V) -> {
-//        	System.arraycopy(V, 0, fragBytes, MTU * (K - 1), K == dataByteList.size() ? V.length : MTU);
-//        });
+        frameBuffer.setPeerAddress(session.peerAddress);
+        createFrame(frameBuffer, header);
+        if (isDebugEnabled()) printDebug("resend data #" + session.transferId + "." + String.format("%04d", seqNum));
+        getMetrics().sent(frameBuffer.length());
+        getMetrics().retransmitted();
+        getUnderLayer().send(frameBuffer, getLayerName());
+    }
+
+    private void expect(SendSession session, int seqNum, long offset) {
+        // Lost Fragment or ACK Brings Fragment Back From File or Message on Timeout
+        int messageType = session.header.messageType;
+        session.ackMonitor.expect(seqNum, () -> resend(session, messageType, seqNum, offset));
+    }
+
+    private void sendACK(long peerAddress, int transferId, int messageType, int cumSeqNum, byte[] sackArray, long window) {
+        // Length Field Carries Receive Window in Bytes, Payload Carries Selective ACK Bitmap
+        // Answered Message Type Lets Sender Drop ACKs of Earlier Phase, Sequence Numbers Restart Each Phase
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        frameBuffer.setPeerAddress(peerAddress);
+        if (sackArray != null) frameBuffer.put(sackArray, 0, sackArray.length);
+        int index = frameBuffer.prepend(HEADER_LENGTH);
+        frameBuffer.fill(index, HEADER_LENGTH, (byte) 0x00);
+        frameBuffer.putLong(index, window);
+        frameBuffer.putByte(index + 11, messageType);
+        frameBuffer.putInt(index + 12, cumSeqNum);
+        frameBuffer.putInt(index + 24, transferId);
+        seal(frameBuffer, index);
+        getMetrics().sent(frameBuffer.length());
+        getUnderLayer().sendACK(frameBuffer, "FileApp");
+    }
 
-        print("defragmented");
-//        printHex(fragBytes, fragBytes.length);
+    private void acknowledge(ReceiveSession session, int seqNum, boolean delayable) {
+        // Every ACK_INTERVAL Fragments or After ACK_DELAY, at Once on Duplicate, Gap, Request or Completed Message
+        synchronized (session) {
+            int cumSeqNum = session.fragBitmap.nextClearBit(0);
+            if (delayable && seqNum == cumSeqNum && session.reassembling && ++session.unackedCount < ACK_INTERVAL) {
+                if (session.ackTimeout == null)
+                    session.ackTimeout = TimerWheel.getInstance().schedule(() -> TimerWheel.getInstance().execute(() -> flushACK(session)), ACK_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        flushACK(session);
     }
 
-    private void sendACK() {
-        getUnderLayer().send(null, 0, "FileApp");
+    private void flushACK(ReceiveSession session) {
+        // Receive Thread or Timer Worker, Bitmap Copied Under Session Lock
+        int messageType;
+        int cumSeqNum;
+        byte[] sackArray;
+        synchronized (session) {
+            if (session.ackTimeout != null) session.ackTimeout.cancel();
+            session.ackTimeout = null;
+            session.unackedCount = 0;
+            messageType = session.ackType;
+            cumSeqNum = session.fragBitmap.nextClearBit(0); // Fragment Index Past Contiguous Run is Sequence Number of Run's End
+            int sackLength = Math.min(session.fragBitmap.length() - cumSeqNum - 1, MAX_SACK_LENGTH * 8);
+            sackArray = sackLength > 0 ? session.fragBitmap.get(cumSeqNum + 1, cumSeqNum + 1 + sackLength).toByteArray() : null;
+        }
+        sendACK(session.peerAddress, session.transferId, messageType, cumSeqNum, sackArray, getReceiveWindow(session));
     }
 
-    private void saveFile(byte[] dataArray) {
+    private boolean openFile(ReceiveSession session, long totalLength) {
         print("saving file");
         try {
-            OutputStream outputStream = new FileOutputStream(new File(filePath));
-            outputStream.write(dataArray);
-            outputStream.close();
+            RandomAccessFile randomAccessFile = new RandomAccessFile(session.filePath, "rw");
+            randomAccessFile.setLength(totalLength); // Preallocate Destination File
+            session.fileChannel = randomAccessFile.getChannel();
+            return true;
+        } catch (IOException | NullPointerException e) {
+            printError("unable to save file to designated path");
+            return false;
+        }
+    }
+
+    private boolean writeFile(ReceiveSession session, byte[] frame, long offset) {
+        // Positional Write Straight From Received Frame
+        ByteBuffer dataBuffer = ByteBuffer.wrap(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+        try {
+            while (dataBuffer.hasRemaining())
+                offset += session.fileChannel.write(dataBuffer, offset);
+            return true;
+        } catch (IOException e) {
+            printError("unable to write file");
+            return false;
+        }
+    }
+
+    private void closeFile(ReceiveSession session) {
+        try {
+            session.fileChannel.close();
             print("file saved");
         } catch (IOException e) {
             printError("unable to save file to designated path");
         }
+        session.fileChannel = null;
     }
 
-    @Override
-    public boolean send(byte[] dataArray, int dataLength) {
-        byte[] frame;
-        header.totalLength = integerToByte4(dataLength);
-        header.fragType = integerToByte2(0x00);
-        header.sequenceNumber = integerToByte4(1);
-
-        this.waitACK(); // Wait for Previous Send
-        if (dataLength > MTU) {
-            print("fragmented send");
-            fragmentedSend(dataArray, dataLength);
+    private boolean startReassembly(ReceiveSession session, int messageType, long totalLength) {
+        // Fragments May Arrive Out of Order, Any of Them Starts Reassembly
+        // Completion Counted in Bytes, Receiver Needs No Knowledge of Sender's Fragment Size
+        session.totalLength = totalLength;
+        session.receivedLength = 0;
+        session.reassembling = true;
+        synchronized (session) {
+            session.ackType = messageType;
+            session.fragBitmap.clear();
+        }
+
+        if (messageType == 0x01) {
+            session.progressTracker = new ProgressTracker(session.transferId, session.peerAddress,
+                    ProgressEvent.Direction.RECEIVE, totalLength, progressRate, progressListenerList);
+            return openFile(session, totalLength);
+        }
+        if (totalLength > MAX_NAME_LENGTH) {
+            printError("file name too long");
+            return false;
+        }
+        session.fragBytes = new byte[(int) totalLength];
+        return true;
+    }
+
+    private boolean receiveFragment(ReceiveSession session, byte[] frame, int messageType, int seqNum) {
+        // False Unless Fragment is New, Which Makes Its ACK Go at Once
+        long offset = byte8ToLong(frame, 16);
+        int fragIndex = seqNum - 1;
+        if (fragIndex < 0 || offset + frame.length - HEADER_LENGTH > session.totalLength) {
+            printError("fragment out of range");
+            return false;
+        }
+
+        if (session.fragBitmap.get(fragIndex)) return false; // Duplicate Fragment
+        if (isDebugEnabled()) printDebug("received data #" + session.transferId + "." + String.format("%04d", seqNum));
+
+        if (messageType == 0x00)
+            System.arraycopy(frame, HEADER_LENGTH, session.fragBytes, (int) offset, frame.length - HEADER_LENGTH);
+        else if (writeFile(session, frame, offset))
+            updateDigest(session, frame, offset);
+        else
+            return false;
+        synchronized (session) {
+            session.fragBitmap.set(fragIndex);
+        }
+        session.receivedLength += frame.length - HEADER_LENGTH;
+
+        if (messageType == 0x01) session.progressTracker.update(session.receivedLength);
+        if (session.receivedLength < session.totalLength) return true;
+
+        // All Fragments Received
+        session.reassembling = false;
+        if (messageType == 0x00) {
+            // File Name, Asked Off Receive Thread so Other Transfers Keep Flowing
+            byte[] fileName = session.fragBytes;
+            session.fragBytes = null;
+            new Thread(() -> sendResponse(session, fileName), "FileApp-response").start();
         } else {
-            frame = createFrame(dataArray, dataLength);
-            getUnderLayer().send(frame, frame.length, getLayerName());
+            // File Data, Confirmed Once Sender's Digest Arrives
+            session.progressTracker.finish(session.receivedLength);
+            closeFile(session);
+            session.dataComplete = true;
+            if (session.expectedDigest != null) verifyFile(session);
         }
+        return true;
+    }
+
+    private void updateDigest(ReceiveSession session, byte[] frame, long offset) {
+        // Digest Needs File Order, Early Fragments Wait Until the Gap Before Them Fills
+        if (offset != session.digestOffset) {
+            session.pendingList.put(offset, frame);
+            session.pendingBytes += frame.length;
+            getMetrics().addReassemblyBytes(frame.length);
+            return;
+        }
+        do {
+            session.digest.update(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+            session.digestOffset += frame.length - HEADER_LENGTH;
+        } while ((frame = takePending(session)) != null);
+    }
+
+    private byte[] takePending(ReceiveSession session) {
+        // Next Fragment in File Order if It Arrived Early
+        byte[] frame = session.pendingList.remove(session.digestOffset);
+        if (frame == null) return null;
+        session.pendingBytes -= frame.length;
+        getMetrics().addReassemblyBytes(-frame.length);
+        return frame;
+    }
+
+    private void receiveDigest(ReceiveSession session, byte[] frame) {
+        if (session.expectedDigest != null) return; // Duplicate Digest
+        session.expectedDigest = Arrays.copyOfRange(frame, HEADER_LENGTH, frame.length);
+        if (session.dataComplete) verifyFile(session);
+    }
+
+    private void verifyFile(ReceiveSession session) {
+        // Streamed Digest Compared Without Reading Saved File Back
+        boolean verified = MessageDigest.isEqual(session.digest.digest(), session.expectedDigest);
+        session.verified = verified;
+        finishSession(session);
+        sendResponse(session, 0x04, verified);
+
+        if (verified) {
+            print("file verified");
+            getUpperLayer(0).receive("File Received".getBytes(), "FileApp");
+        } else {
+            printError("file digest mismatch");
+            getUpperLayer(0).receive("File corrupted.".getBytes(), "FileApp");
+        }
+        FileListener fileListener = this.fileListener;
+        if (fileListener != null) fileListener.fileReceived(session.filePath, verified);
+    }
+
+    private ReceiveSession getSession(long peerAddress, int transferId) {
+        ConcurrentHashMap<Integer, ReceiveSession> peerSessionMap = receiveSessionMap.get(peerAddress);
+        return peerSessionMap == null ? null : peerSessionMap.get(transferId);
+    }
+
+    private void putSession(ReceiveSession session) {
+        receiveSessionMap.computeIfAbsent(session.peerAddress, peerAddress -> new ConcurrentHashMap<>())
+                .put(session.transferId, session);
+    }
+
+    private void finishSession(ReceiveSession session) {
+        // Kept a While so Probes of Lost Response Get Answered, Not Taken as New Transfer
+        releasePending(session);
+        TimerWheel.getInstance().schedule(() -> {
+            ConcurrentHashMap<Integer, ReceiveSession> peerSessionMap = receiveSessionMap.get(session.peerAddress);
+            if (peerSessionMap != null) peerSessionMap.remove(session.transferId, session);
+        }, SESSION_LINGER, TimeUnit.SECONDS);
+    }
+
+    private void removeSession(ReceiveSession session) {
+        ConcurrentHashMap<Integer, ReceiveSession> peerSessionMap = receiveSessionMap.get(session.peerAddress);
+        if (peerSessionMap != null) peerSessionMap.remove(session.transferId);
+        releasePending(session);
+    }
+
+    private void releasePending(ReceiveSession session) {
+        // Fragments Still Waiting for Digest are Given Up With Session
+        for (byte[] frame : session.pendingList.values())
+            getMetrics().addReassemblyBytes(-frame.length);
+        session.pendingList.clear();
+        session.pendingBytes = 0;
+    }
+
+    @Override
+    public boolean receiveACK(byte[] frame) {
+        return receiveACK(frame, getDefaultPeerAddress());
+    }
+
+    @Override
+    public boolean receiveACK(byte[] frame, long peerAddress) {
+        if (frame == null || frame.length < HEADER_LENGTH) {
+            printError("ACK without sequence number");
+            return false;
+        }
+        getMetrics().received(frame.length);
+        if (!isIntact(frame)) {
+            getMetrics().dropped();
+            printError("corrupt ACK dropped");
+            return false;
+        }
+        SendSession session = sendSessionMap.get(byte4ToInteger(frame[24], frame[25], frame[26], frame[27]));
+        if (session == null || session.peerAddress != peerAddress) return false; // Late ACK of Finished Transfer
+        if (frame[11] != session.header.messageType) return false; // Late ACK of Earlier Phase
+        long window = byte8ToLong(frame, 0);
+        if (window > 0) session.peerWindow = (int) Math.min(Integer.MAX_VALUE, window / session.fragSize);
+        BitSet selectiveBitmap = BitSet.valueOf(ByteBuffer.wrap(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH));
+        session.ackMonitor.acknowledge(byte4ToInteger(frame[12], frame[13], frame[14], frame[15]), selectiveBitmap);
+        return true;
+    }
+
+    private boolean send(SendSession session, byte[] dataArray, int dataLength) {
+        if (!this.waitACK(session, 1)) return false; // Wait for Previous Send
+        session.messageArray = dataArray; // Kept for Resend
+        return send(session, ByteBuffer.wrap(dataArray, 0, dataLength), 0, dataLength);
+    }
+
+    private boolean send(SendSession session, ByteBuffer dataBuffer, long offset, long totalLength) {
+        if (totalLength > session.fragSize) {
+            if (offset == 0) printDebug("fragmented send");
+            return fragmentedSend(session, dataBuffer, offset, totalLength);
+        }
+
+        FileAppHeader header = session.header;
+        header.totalLength = totalLength;
+        header.fragType = 0x00;
+        header.flags = ACK_REQUEST;
+        header.sequenceNumber = 1;
+        header.offset = 0;
+
+        FrameBuffer frameBuffer = getUnderLayer().getFrameBuffer();
+        frameBuffer.put(dataBuffer, dataBuffer.remaining());
+        frameBuffer.setPeerAddress(session.peerAddress);
+        createFrame(frameBuffer, header);
+        expect(session, 1, 0);
+        getMetrics().sent(frameBuffer.length());
+        getUnderLayer().send(frameBuffer, getLayerName());
+        return true;
+    }
 
+    private boolean send(SendSession session, FileChunkReader fileChunkReader) {
+        session.fileChunkReader = fileChunkReader;
+        if (fileChunkReader.size() == 0)
+            return send(session, ByteBuffer.allocate(0), 0, 0);
+
+        // Send Chunk by Chunk While Next Chunk is Read Ahead
+        try {
+            long offset = 0;
+            ByteBuffer chunk;
+            while ((chunk = fileChunkReader.nextChunk()) != null) {
+                int chunkLength = chunk.remaining();
+                session.digest.update(chunk.duplicate()); // Digest Streams Along With Read-ahead
+                if (!send(session, chunk, offset, fileChunkReader.size())) return false;
+                offset += chunkLength;
+            }
+        } catch (IOException e) {
+            printError("failed to read file");
+            e.printStackTrace();
+            return false;
+        }
         return true;
     }
 
     @Override
     public boolean send(String filePath) {
-        FileInputStream fileInputStream;
-        File file;
-        byte[] fileName;
-        byte[] fileBuffer;
+        return send(filePath, getDefaultPeerAddress());
+    }
 
-        file = new File(filePath);
-        fileName = file.getName().getBytes();
-        fileBuffer = new byte[(int) file.length()];
+    public boolean send(String filePath, long peerAddress) {
+        File file = new File(filePath);
+        byte[] fileName = file.getName().getBytes();
+        if (!file.canRead()) {
+            printError("failed to read file " + file.getName());
+            return false;
+        }
 
+        // Each Call Runs Its Own Session, Concurrent Transfers Share the Link
+        int fragSize = getUnderLayer().getMTU() - HEADER_LENGTH; // Whatever Fits Below, Compression Header Included
+        RTOEstimator rtoEstimator = rtoEstimatorMap.computeIfAbsent(peerAddress, address -> new RTOEstimator());
+        SendSession session = new SendSession(transferIdCounter.incrementAndGet(), peerAddress, Math.min(fragSize, BASE_FRAGMENT_SIZE), getMetrics(), rtoEstimator);
+        session.congestionWindow.setMaxWindow(windowSize / session.fragSize);
+        sendSessionMap.put(session.transferId, session);
         try {
-            fileInputStream = new FileInputStream(file);
-            fileInputStream.read(fileBuffer);
-            fileInputStream.close();
+            // Send File Name
+            session.header.messageType = 0x00;
+            if (!send(session, fileName, fileName.length) || !this.waitResponse(session)) // Wait for Acceptance
+                return cancelled();
+            if (!this.waitACK(session, 1)) return false; // ACKs Tagged With File Name Phase Until Data Starts
+
+            // Fragment Size Agreed on Acceptance, Read-ahead Chunks Hold Whole Fragments
+            session.fragSize = Math.min(fragSize, session.peerFragSize > 0 ? session.peerFragSize : BASE_FRAGMENT_SIZE);
+            session.congestionWindow.setMaxWindow(windowSize / session.fragSize); // Jumbo Fragments Fill Same Bytes in Fewer Frames
+            print("fragment size " + session.fragSize);
+            try (FileChunkReader fileChunkReader = new FileChunkReader(file.toPath(), session.fragSize * CHUNK_FRAGMENTS)) {
+                // Send File
+                session.header.messageType = 0x01;
+                session.progressTracker = new ProgressTracker(session.transferId, peerAddress,
+                        ProgressEvent.Direction.SEND, fileChunkReader.size(), progressRate, progressListenerList);
+                getUpperLayer(0).receive("Starting file transfer".getBytes(), "FileApp");
+                print("starting file transfer #" + session.transferId);
+                if (!send(session, fileChunkReader) || !this.waitACK(session, 1)) { // Wait for Last Fragments
+                    getUpperLayer(0).receive("File transfer failed.".getBytes(), "FileApp");
+                    printError("file transfer failed");
+                    return false;
+                }
+                session.progressTracker.finish(fileChunkReader.size());
+
+                // Send Digest, Receiver Answers Whether Its Streamed Digest Matches
+                session.header.messageType = 0x04;
+                session.responseList.clear(); // Repeated Acceptances Still Queued
+                byte[] fileDigest = session.digest.digest();
+                if (!send(session, fileDigest, fileDigest.length) || !this.waitResponse(session)) {
+                    getUpperLayer(0).receive("File transfer failed.".getBytes(), "FileApp");
+                    printError("file verification failed");
+                    return false;
+                }
+                getUpperLayer(0).receive("File transfer done!".getBytes(), "FileApp");
+                print("file transfer done!");
+                return true;
+            }
         } catch (IOException e) {
             printError("failed to read file " + file.getName());
             e.printStackTrace();
             return false;
+        } finally {
+            session.ackMonitor.clear(); // No Retransmission Outlives Transfer
+            sendSessionMap.remove(session.transferId);
         }
+    }
 
-        // Send File Name
-        header.messageType = 0x00;
-        send(fileName, fileName.length);
-
-        if (this.waitResponse()) { // Wait for Acceptance
-            // Send File
-            header.messageType = 0x01;
-            getUpperLayer(0).receive("Starting file transfer".getBytes(), "FileApp");
-            print("starting file transfer");
-            send(fileBuffer, fileBuffer.length);
-            getUpperLayer(0).receive("File transfer done!".getBytes(), "FileApp");
-            print("file transfer done!");
-            return true;
-        }
-
+    private boolean cancelled() {
         // File Transfer Cancelled
         getUpperLayer(0).receive("File transfer cancelled.".getBytes(), "FileApp");
         printError("file transfer cancelled");
@@ -262,83 +714,89 @@ public class FileAppLayer extends BaseLayer {
 
     @Override
     public boolean receive(byte[] frame) {
-        if (frame == null) {
-            ackCheckList.add(true);
-            return true;
-        } else {
-            sendACK();
+        return receive(frame, getDefaultPeerAddress());
+    }
+
+    @Override
+    public synchronized boolean receive(byte[] frame, long peerAddress) {
+        if (frame == null || frame.length < HEADER_LENGTH) {
+            printError("null frame");
+            return false;
         }
 
-        byte[] dataArray;
-        byte[] buffer;
-        int messageType = (byte) (frame[6] & 0xFF);
-        int fragType = byte2ToInteger(frame[4], frame[5]);
-        int seqNum = byte4ToInteger(frame[8], frame[9], frame[10], frame[11]);
+        getMetrics().received(frame.length);
+        int messageType = (byte) (frame[10] & 0xFF);
+        if (!isIntact(frame)) {
+            getMetrics().dropped();
+            printError("corrupt frame");
+            if (messageType == 0x00 || messageType == 0x01 || messageType == 0x04) requestResend(peerAddress, frame);
+            return false;
+        }
+        int fragType = byte2ToInteger(frame[8], frame[9]);
+        int seqNum = byte4ToInteger(frame[12], frame[13], frame[14], frame[15]);
+        int transferId = byte4ToInteger(frame[24], frame[25], frame[26], frame[27]);
 
         switch (messageType) {
             case 0x00:
                 // File Name
             case 0x01:
                 // File Data
-                dataArray = removeHeader(frame, frame.length);
-                UILayer upperLayer = (UILayer) getUpperLayer(0);
-                switch (fragType) {
-                    case 0x00:
-                        // Unfragmented Data
-                        if (messageType == 0x00) {
-                            // File Name
-                            sendResponse(dataArray);
-                        } else {
-                            // File Data
-                            upperLayer.updateProgress(100);
-                            saveFile(dataArray);
-                            upperLayer.receive("File Received".getBytes(), "FileApp");
-                            upperLayer.unlockFileUI();
-                        }
-                        break;
-                    case 0x01:
-                        // First Data
-                        fragBytes = new byte[byte4ToInteger(frame[0], frame[1], frame[2], frame[3])];
-                        dataByteList.clear();
-                    case 0x02:
-                        // Next Data
-                        print("received data #" + String.format("%04d", seqNum));
-                        buffer = new byte[MTU];
-                        System.arraycopy(dataArray, 0, buffer, 0, MTU);
-                        dataByteList.put(seqNum, buffer);
-                        print(String.valueOf((int) Math.ceil(seqNum / Math.ceil(fragBytes.length / (double) MTU) * 100)));
-                        print(String.valueOf(fragBytes.length));
-                        if (messageType == 0x01)
-                            ((UILayer) getUpperLayer(0)).updateProgress((int) Math.ceil(seqNum / Math.ceil(fragBytes.length / (double) MTU) * 100));
-                        break;
-                    case 0x03:
-                        // Last Data
-                        buffer = new byte[frame.length - 12];
-                        System.arraycopy(dataArray, 0, buffer, 0, frame.length - 12);
-                        dataByteList.put(seqNum, buffer);
-                        defragmentation();
-
-                        if (messageType == 0x00) {
-                            // File Name
-                            sendResponse(fragBytes);
-                        } else {
-                            // File Data
-                            upperLayer.updateProgress((int) Math.ceil(seqNum / Math.ceil(fragBytes.length / (double) MTU) * 100));
-                            saveFile(fragBytes);
-                            upperLayer.receive("File Received".getBytes(), "FileApp");
-                            upperLayer.unlockFileUI();
-                        }
-                        break;
-                    default:
-                        printError("undefined frag type");
+                ReceiveSession session = getSession(peerAddress, transferId);
+                if (fragType < 0x00 || fragType > 0x03) {
+                    // 0x00 Unfragmented, 0x01 First, 0x02 Next, 0x03 Last
+                    printError("undefined frag type");
+                    return false;
+                }
+                if (session == null) {
+                    if (messageType == 0x01) { // Data of Refused or Finished Transfer
+                        sendACK(peerAddress, transferId, messageType, seqNum, null, getReceiveWindow(null));
                         return false;
+                    }
+                    session = new ReceiveSession(peerAddress, transferId);
+                    putSession(session);
+                } else if (messageType == 0x00 ? session.fragBytes == null : session.dataComplete) {
+                    // Duplicate of Already Reassembled Message, Answer Repeated if Given
+                    if (session.ackType == messageType) flushACK(session);
+                    else sendACK(peerAddress, transferId, messageType, seqNum, null, getReceiveWindow(session));
+                    Boolean accepted = session.accepted;
+                    if (messageType == 0x00 && accepted != null) sendResponse(session, 0x00, accepted);
+                    return false;
+                } else if (messageType == 0x01 && session.accepted != Boolean.TRUE) {
+                    sendACK(peerAddress, transferId, messageType, seqNum, null, getReceiveWindow(session));
+                    return false; // Data of Refused Transfer
+                }
+                if (!session.reassembling && !startReassembly(session, messageType, byte8ToLong(frame, 0))) {
+                    sendACK(peerAddress, transferId, messageType, seqNum, null, getReceiveWindow(null));
+                    removeSession(session);
+                    return false;
                 }
+                boolean fresh = receiveFragment(session, frame, messageType, seqNum);
+                acknowledge(session, seqNum, fresh && (frame[11] & ACK_REQUEST) == 0);
                 break;
             case 0x02:
                 // Response : Accept
             case 0x03:
                 // Response : Denial
-                responseList.add(messageType == 0x02);
+                SendSession sendSession = sendSessionMap.get(transferId);
+                if (sendSession == null || sendSession.peerAddress != peerAddress) return false;
+                if (frame[11] != sendSession.header.messageType) return false; // Repeated Answer of Earlier Phase
+                sendSession.peerFragSize = (int) byte8ToLong(frame, 0);
+                sendSession.responseList.add(messageType == 0x02);
+                break;
+            case 0x04:
+                // File Digest
+                ReceiveSession digestSession = getSession(peerAddress, transferId);
+                sendACK(peerAddress, transferId, messageType, seqNum, null, getReceiveWindow(digestSession));
+                if (digestSession == null) return false;
+                Boolean verified = digestSession.verified;
+                if (verified != null) sendResponse(digestSession, 0x04, verified); // Answer Was Lost
+                else receiveDigest(digestSession, frame);
+                break;
+            case 0x05:
+                // Resend Request for Corrupt Fragment
+                SendSession resendSession = sendSessionMap.get(transferId);
+                if (resendSession == null || resendSession.peerAddress != peerAddress) return false;
+                if (frame[11] == resendSession.header.messageType) resendSession.ackMonitor.retransmit(seqNum); // Not on Receive Thread
                 break;
             default:
                 printError("undefined message type");
@@ -347,21 +805,92 @@ public class FileAppLayer extends BaseLayer {
         return true;
     }
 
+    public interface FileListener {
+
+        String acceptFile(long peerAddress, byte[] fileName); // Destination Path, Null Refuses Transfer
+
+        void fileReceived(String filePath, boolean verified);
+
+    }
+
+    private static class SendSession {
+
+        final int transferId;
+        final long peerAddress;
+        final FileAppHeader header;
+        final ACKMonitor ackMonitor;
+        final CongestionWindow congestionWindow = new CongestionWindow();
+        final LinkedBlockingQueue<Boolean> responseList = new LinkedBlockingQueue<>();
+        final MessageDigest digest = newDigest();
+        volatile int fragSize;
+        int peerFragSize = 0; // Published Through responseList
+        volatile byte[] messageArray = null; // File Name or Digest in Flight
+        volatile FileChunkReader fileChunkReader = null;
+        volatile ProgressTracker progressTracker = null; // Data Phase Only
+        volatile int peerWindow = Integer.MAX_VALUE; // Fragments, Until Receiver Advertises
+
+        public SendSession(int transferId, long peerAddress, int fragSize, LayerMetrics metrics, RTOEstimator rtoEstimator) {
+            this.transferId = transferId;
+            this.peerAddress = peerAddress;
+            this.fragSize = fragSize;
+            this.ackMonitor = new ACKMonitor(metrics, rtoEstimator, congestionWindow);
+            this.ackMonitor.setACKDelay(ACK_DELAY + 1, TimeUnit.MILLISECONDS); // Plus Timer Wheel Tick
+            this.header = new FileAppHeader();
+            this.header.transferId = transferId;
+        }
+
+    }
+
+    private static class ReceiveSession {
+
+        final long peerAddress;
+        final int transferId;
+        final BitSet fragBitmap = new BitSet(); // Guarded by Session Lock, Shared With Delayed ACK
+        final MessageDigest digest = newDigest();
+        final HashMap<Long, byte[]> pendingList = new HashMap<>(); // Fragments Ahead of Digest, Keyed by Offset
+        long digestOffset = 0;
+        volatile long pendingBytes = 0; // Read by Timer Wheel for Window
+        byte[] expectedDigest = null;
+        boolean dataComplete = false;
+        byte[] fragBytes = null;
+        FileChannel fileChannel = null;
+        long totalLength = 0;
+        long receivedLength = 0;
+        boolean reassembling = false;
+        int ackType = -1; // Message Type fragBitmap Belongs To, Guarded by Session Lock
+        int unackedCount = 0;
+        TimerWheel.Timeout ackTimeout = null;
+        ProgressTracker progressTracker = null;
+        volatile Boolean accepted = null; // Answers Kept for Repeating
+        volatile Boolean verified = null;
+        volatile String filePath = null;
+
+        public ReceiveSession(long peerAddress, int transferId) {
+            this.peerAddress = peerAddress;
+            this.transferId = transferId;
+        }
+
+    }
+
     private static class FileAppHeader {
 
-        byte[] totalLength;
-        byte[] fragType;
+        long totalLength;
+        int fragType;
         byte messageType;
-        byte unused;
-        byte[] sequenceNumber;
+        byte flags;
+        int sequenceNumber;
+        long offset;
+        int transferId;
         byte[] data;
 
         public FileAppHeader() {
-            totalLength = new byte[4];
-            fragType = new byte[2];
+            totalLength = 0;
+            fragType = 0x00;
             messageType = 0x00;
-            unused = 0x00;
-            sequenceNumber = new byte[4];
+            flags = 0x00;
+            sequenceNumber = 0;
+            offset = 0;
+            transferId = 0;
             data = null;
         }
 
@@ -0,0 +1,88 @@
+package datacomm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class FileChunkReader implements Closeable {
+
+    private final AsynchronousFileChannel fileChannel;
+    private final ByteBuffer[] bufferList = new ByteBuffer[2];
+    private final long fileSize;
+    private Future<Integer> pendingRead = null;
+    private int bufferIndex = 0;
+    private long readPosition = 0;
+
+    public FileChunkReader(Path filePath, int chunkSize) throws IOException {
+        fileChannel = AsynchronousFileChannel.open(filePath, StandardOpenOption.READ);
+        fileSize = fileChannel.size();
+        bufferList[0] = ByteBuffer.allocateDirect(chunkSize);
+        bufferList[1] = ByteBuffer.allocateDirect(chunkSize);
+        readAhead();
+    }
+
+    public long size() {
+        return fileSize;
+    }
+
+    private void readAhead() {
+        // Start Filling Back Buffer While Front Buffer is Being Sent
+        ByteBuffer buffer = bufferList[bufferIndex];
+        buffer.clear();
+        pendingRead = readPosition < fileSize ? fileChannel.read(buffer, readPosition) : null;
+    }
+
+    public ByteBuffer nextChunk() throws IOException {
+        // Returned Chunk Stays Valid Until Next Call
+        if (pendingRead == null) return null;
+
+        ByteBuffer buffer = bufferList[bufferIndex];
+        try {
+            int readLength = pendingRead.get();
+            while (readLength >= 0 && buffer.hasRemaining() && readPosition + buffer.position() < fileSize)
+                readLength = fileChannel.read(buffer, readPosition + buffer.position()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while reading file", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        buffer.flip();
+        if (!buffer.hasRemaining()) throw new IOException("unexpected end of file");
+        readPosition += buffer.remaining();
+
+        bufferIndex ^= 1;
+        readAhead();
+        return buffer;
+    }
+
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        // Positional Read Apart From Read-ahead, Used to Resend Single Fragments
+        int length = 0;
+        try {
+            while (buffer.hasRemaining() && position + length < fileSize) {
+                int readLength = fileChannel.read(buffer, position + length).get();
+                if (readLength < 0) break;
+                length += readLength;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while reading file", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pendingRead != null) pendingRead.cancel(false);
+        fileChannel.close();
+    }
+
+}
@@ -0,0 +1,124 @@
+package datacomm;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+public class FrameBuffer {
+
+    public static final int HEADROOM = 128; // Room for Every Header Below App Layer
+    public static final int DEFAULT_FRAME_SIZE = 1514; // Ethernet Header + MTU
+
+    private final ByteBuffer buffer;
+    private final FrameBufferPool pool;
+    private int start;
+    private int end;
+    private long peerAddress; // Destination MAC, 0 for Default Peer
+
+    public FrameBuffer(ByteBuffer buffer, FrameBufferPool pool) {
+        this.buffer = buffer;
+        this.pool = pool;
+        reset();
+    }
+
+    public void reset() {
+        buffer.clear();
+        start = end = HEADROOM;
+        peerAddress = 0;
+    }
+
+    public long getPeerAddress() {
+        return peerAddress;
+    }
+
+    public void setPeerAddress(long peerAddress) {
+        this.peerAddress = peerAddress;
+    }
+
+    public void release() {
+        // Unpooled Buffers are Left to GC
+        if (pool != null) pool.release(this);
+    }
+
+    public int length() {
+        return end - start;
+    }
+
+    public int remaining() {
+        return buffer.capacity() - end;
+    }
+
+    public int prepend(int length) {
+        // Grow Frame Toward Front, Returns Index of New First Byte
+        if (length > start) throw new IllegalStateException("frame headroom exhausted");
+        start -= length;
+        return start;
+    }
+
+    public int append(int length) {
+        // Grow Frame Toward Back, Returns Index of First Appended Byte
+        if (length > remaining()) throw new IllegalStateException("frame buffer overflow");
+        int index = end;
+        end += length;
+        return index;
+    }
+
+    public void put(byte[] dataArray, int offset, int length) {
+        buffer.position(append(length));
+        buffer.put(dataArray, offset, length);
+    }
+
+    public void put(ByteBuffer dataBuffer, int length) {
+        int limit = dataBuffer.limit();
+        dataBuffer.limit(dataBuffer.position() + length);
+        buffer.position(append(length));
+        buffer.put(dataBuffer);
+        dataBuffer.limit(limit);
+    }
+
+    public void put(int index, byte[] dataArray) {
+        buffer.position(index);
+        buffer.put(dataArray);
+    }
+
+    public void fill(int index, int length, byte value) {
+        for (int offset = 0; offset < length; offset++)
+            buffer.put(index + offset, value);
+    }
+
+    public void putByte(int index, int value) {
+        buffer.put(index, (byte) value);
+    }
+
+    public void putShort(int index, int value) {
+        buffer.putShort(index, (short) value);
+    }
+
+    public void putInt(int index, int value) {
+        buffer.putInt(index, value);
+    }
+
+    public void putLong(int index, long value) {
+        buffer.putLong(index, value);
+    }
+
+    public ByteBuffer getByteBuffer() {
+        // View of Frame Bytes Only, Valid Until Release
+        buffer.limit(end);
+        buffer.position(start);
+        return buffer;
+    }
+
+    public void update(CRC32 crc32) {
+        // Checksum Over Frame Bytes, Buffer Stays Writable Afterwards
+        crc32.update(getByteBuffer());
+        buffer.clear();
+    }
+
+    public byte[] toByteArray() {
+        byte[] frame = new byte[length()];
+        getByteBuffer().get(frame);
+        buffer.clear();
+        return frame;
+    }
+
+}
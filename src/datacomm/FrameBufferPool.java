@@ -0,0 +1,43 @@
+package datacomm;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public class FrameBufferPool {
+
+    private final ArrayBlockingQueue<FrameBuffer> bufferList;
+    private final int frameSize;
+    private final boolean direct;
+
+    public FrameBufferPool(int frameSize, int poolSize, boolean direct) {
+        this.frameSize = frameSize;
+        this.direct = direct;
+        this.bufferList = new ArrayBlockingQueue<>(poolSize);
+
+        // Preallocate So Steady State Never Allocates
+        for (int index = 0; index < poolSize; index++)
+            bufferList.offer(allocate());
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    private FrameBuffer allocate() {
+        // Direct Buffers Go to Native Send Without Extra Copy
+        int capacity = FrameBuffer.HEADROOM + frameSize;
+        return new FrameBuffer(direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity), this);
+    }
+
+    public FrameBuffer acquire() {
+        // Allocate Only When Pool Runs Dry, Extra Buffers are Dropped on Release
+        FrameBuffer frameBuffer = bufferList.poll();
+        return frameBuffer == null ? allocate() : frameBuffer;
+    }
+
+    public void release(FrameBuffer frameBuffer) {
+        frameBuffer.reset();
+        bufferList.offer(frameBuffer);
+    }
+
+}
@@ -0,0 +1,128 @@
+package datacomm;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameRing {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final byte[][] slotList;
+    private final int[] lengthList;
+    private final int mask;
+    private final Policy policy;
+
+    // Single Producer Writes tail, Single Consumer Writes head
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private volatile int highWatermark = 0;
+    private volatile Thread waitingConsumer = null;
+
+    public FrameRing(int capacity, int slotSize, Policy policy) {
+        // Capacity Rounded Up to Power of Two for Mask Indexing
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slotList = new byte[size][slotSize];
+        this.lengthList = new int[size];
+        this.mask = size - 1;
+        this.policy = policy;
+    }
+
+    public int capacity() {
+        return slotList.length;
+    }
+
+    public int getSlotSize() {
+        return slotList[0].length;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public long getPublishedCount() {
+        return tail.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /* Producer Side */
+    public byte[] claim() {
+        // Returns Free Slot to Fill, Null When Frame Has to be Dropped
+        long tail = this.tail.get();
+        if (tail - head.get() >= slotList.length) {
+            if (policy == Policy.DROP) {
+                droppedCount.incrementAndGet();
+                return null;
+            }
+            blockedCount.incrementAndGet();
+            while (tail - head.get() >= slotList.length) {
+                if (Thread.currentThread().isInterrupted()) return null;
+                Thread.yield(); // Consumer is Busy Draining, Slot Frees Up Shortly
+            }
+        }
+        return slotList[(int) (tail & mask)];
+    }
+
+    public void publish(int length) {
+        long tail = this.tail.get();
+        lengthList[(int) (tail & mask)] = length;
+        this.tail.set(tail + 1);
+
+        int size = (int) (tail + 1 - head.get());
+        if (size > highWatermark) highWatermark = size;
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) LockSupport.unpark(consumer);
+    }
+
+    public void drop() {
+        // Frame Too Large for Slot
+        droppedCount.incrementAndGet();
+    }
+
+    /* Consumer Side */
+    public byte[] poll() {
+        long head = this.head.get();
+        if (head == tail.get()) return null;
+
+        int index = (int) (head & mask);
+        byte[] frame = Arrays.copyOf(slotList[index], lengthList[index]);
+        this.head.lazySet(head + 1);
+        return frame;
+    }
+
+    public byte[] take() throws InterruptedException {
+        byte[] frame;
+        while ((frame = poll()) == null) {
+            waitingConsumer = Thread.currentThread();
+            if (head.get() == tail.get()) LockSupport.parkNanos(this, PARK_NANOS);
+            waitingConsumer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return frame;
+    }
+
+    public enum Policy {
+        DROP, // Drop Newest Frame When Ring is Full
+        BLOCK // Hold Capture Thread Until Consumer Frees Slot
+    }
+
+}
@@ -0,0 +1,81 @@
+package datacomm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    // Log-linear Buckets: Each Power of Two Split Into 8 Steps, Any Value Within 12.5%
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray countList = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    private static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    private static long getUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT + 1) << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        // Lock-free, Safe From Any Number of Threads
+        if (nanos < 0) nanos = 0;
+        countList.incrementAndGet(getIndex(nanos));
+        count.increment();
+        sum.add(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos))
+            current = max.get();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMean(TimeUnit unit) {
+        long count = this.count.sum();
+        return count == 0 ? 0 : unit.convert(sum.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getPercentile(double percentile, TimeUnit unit) {
+        // Upper Bound of Bucket Holding the Rank, Never Above Recorded Maximum
+        long total = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++)
+            total += countList.get(index);
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += countList.get(index);
+            if (seen >= rank) return unit.convert(Math.min(getUpperBound(index), max.get()), TimeUnit.NANOSECONDS);
+        }
+        return getMax(unit);
+    }
+
+    public void reset() {
+        // Samples Recorded While Resetting May Survive, Fine for Monitoring
+        for (int index = 0; index < BUCKET_COUNT; index++)
+            countList.set(index, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+}
@@ -18,16 +18,44 @@ public interface LayerInterface {
 
     void setUpperUnderLayer(LayerInterface upperUnderLayer);
 
+    int getDataType();
+
+    int getACKType();
+
     boolean send(byte[] dataArray, int dataLength);
 
     boolean send(byte[] dataArray, int dataLength, String layerName);
 
     boolean send(String filePath);
 
+    FrameBuffer getFrameBuffer();
+
+    boolean send(FrameBuffer frameBuffer);
+
+    boolean send(FrameBuffer frameBuffer, String layerName);
+
+    boolean sendACK(FrameBuffer frameBuffer, String layerName);
+
+    boolean setFilter(String filterExpression);
+
+    long getDefaultPeerAddress();
+
+    int getMTU();
+
+    LayerMetrics getMetrics();
+
+    boolean sendACK(byte[] dataArray, int dataLength, String layerName);
+
     boolean receive();
 
     boolean receive(byte[] dataArray);
 
     boolean receive(byte[] dataArray, String layerName);
 
+    boolean receive(byte[] dataArray, long peerAddress);
+
+    boolean receiveACK(byte[] dataArray);
+
+    boolean receiveACK(byte[] dataArray, long peerAddress);
+
 }
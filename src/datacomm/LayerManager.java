@@ -1,12 +1,21 @@
 package datacomm;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LayerManager {
 
+    private static final AtomicInteger STACK_COUNTER = new AtomicInteger();
+
     private final ArrayList<LayerInterface> layerStack = new ArrayList<>();
     private final ArrayList<LayerInterface> layerList = new ArrayList<>();
+    private final ArrayList<ObjectName> metricsNameList = new ArrayList<>();
+    private final int stackNumber = STACK_COUNTER.incrementAndGet(); // Tells Apart Stacks in One JVM
     private int topLayerNumber;
     private Node front;
     private Node rear;
@@ -21,6 +30,32 @@ public class LayerManager {
     public void addLayer(LayerInterface layer) {
         layerList.add(layerCount, layer);
         layerCount++;
+        registerMetrics(layer);
+    }
+
+    private void registerMetrics(LayerInterface layer) {
+        // One MBean per Layer, Browsable in JConsole Under datacomm
+        if (layer.getMetrics() == null) return;
+        try {
+            ObjectName name = new ObjectName("datacomm:type=Layer,stack=" + stackNumber + ",name=" + layer.getLayerName());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(layer.getMetrics(), name);
+            metricsNameList.add(name);
+        } catch (JMException e) {
+            System.err.printf("[LayerManager] cannot register metrics of %s : %s\n", layer.getLayerName(), e.getMessage());
+        }
+    }
+
+    public void unregisterMetrics() {
+        // Lets Stacks Built and Dropped at Runtime be Collected
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : metricsNameList) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                System.err.printf("[LayerManager] cannot unregister %s : %s\n", name, e.getMessage());
+            }
+        }
+        metricsNameList.clear();
     }
 
     public LayerInterface getLayer(int index) {
@@ -0,0 +1,153 @@
+package datacomm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LayerMetrics implements LayerMetricsMBean {
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder unknownTypeFrames = new LongAdder();
+    private final LongAdder retransmissions = new LongAdder();
+    private final LongAdder reassemblyBytes = new LongAdder(); // Gauge, Goes Up and Down
+    private final LatencyHistogram ackWait = new LatencyHistogram(); // Time Sender Blocked on Window
+    private final LatencyHistogram ackRoundTrip = new LatencyHistogram(); // Frame Sent to Its ACK
+
+    public void sent(int length) {
+        framesSent.increment();
+        bytesSent.add(length);
+    }
+
+    public void received(int length) {
+        framesReceived.increment();
+        bytesReceived.add(length);
+    }
+
+    public void dropped() {
+        droppedFrames.increment();
+    }
+
+    public void unknownType() {
+        unknownTypeFrames.increment();
+    }
+
+    public void retransmitted() {
+        retransmissions.increment();
+    }
+
+    public void addReassemblyBytes(long length) {
+        // Negative When Buffers are Released
+        reassemblyBytes.add(length);
+    }
+
+    public LatencyHistogram getACKWait() {
+        return ackWait;
+    }
+
+    public LatencyHistogram getACKRoundTrip() {
+        return ackRoundTrip;
+    }
+
+    @Override
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getFramesReceived() {
+        return framesReceived.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    @Override
+    public long getUnknownTypeFrames() {
+        return unknownTypeFrames.sum();
+    }
+
+    @Override
+    public long getRetransmissions() {
+        return retransmissions.sum();
+    }
+
+    @Override
+    public long getReassemblyBytes() {
+        return reassemblyBytes.sum();
+    }
+
+    @Override
+    public long getACKWaitCount() {
+        return ackWait.getCount();
+    }
+
+    @Override
+    public long getACKWaitMeanMicros() {
+        return ackWait.getMean(TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKWaitP99Micros() {
+        return ackWait.getPercentile(99, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKRoundTripCount() {
+        return ackRoundTrip.getCount();
+    }
+
+    @Override
+    public long getACKRoundTripMeanMicros() {
+        return ackRoundTrip.getMean(TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKRoundTripP50Micros() {
+        return ackRoundTrip.getPercentile(50, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKRoundTripP90Micros() {
+        return ackRoundTrip.getPercentile(90, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKRoundTripP99Micros() {
+        return ackRoundTrip.getPercentile(99, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long getACKRoundTripMaxMicros() {
+        return ackRoundTrip.getMax(TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public void reset() {
+        // Reassembly Gauge Tracks Live Buffers and is Kept
+        framesSent.reset();
+        bytesSent.reset();
+        framesReceived.reset();
+        bytesReceived.reset();
+        droppedFrames.reset();
+        unknownTypeFrames.reset();
+        retransmissions.reset();
+        ackWait.reset();
+        ackRoundTrip.reset();
+    }
+
+}
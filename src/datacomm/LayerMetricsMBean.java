@@ -0,0 +1,41 @@
+package datacomm;
+
+public interface LayerMetricsMBean {
+
+    long getFramesSent();
+
+    long getBytesSent();
+
+    long getFramesReceived();
+
+    long getBytesReceived();
+
+    long getDroppedFrames();
+
+    long getUnknownTypeFrames();
+
+    long getRetransmissions();
+
+    long getReassemblyBytes();
+
+    long getACKWaitCount();
+
+    long getACKWaitMeanMicros();
+
+    long getACKWaitP99Micros();
+
+    long getACKRoundTripCount();
+
+    long getACKRoundTripMeanMicros();
+
+    long getACKRoundTripP50Micros();
+
+    long getACKRoundTripP90Micros();
+
+    long getACKRoundTripP99Micros();
+
+    long getACKRoundTripMaxMicros();
+
+    void reset();
+
+}
@@ -0,0 +1,147 @@
+package datacomm;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class LogWriter {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final LogWriter INSTANCE = new LogWriter(DEFAULT_CAPACITY);
+
+    private final Entry[] entryList;
+    private final int mask;
+
+    // Many Producers Claim tail by CAS, Writer Thread Alone Moves head
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean waiting = false;
+
+    private LogWriter(int capacity) {
+        // Entries Preallocated, Logging Only Fills Slots
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        entryList = new Entry[size];
+        for (int index = 0; index < size; index++)
+            entryList[index] = new Entry();
+        mask = size - 1;
+
+        writerThread = new Thread(this::run, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-flush"));
+    }
+
+    public static LogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public boolean write(Level level, String layerName, String message) {
+        return write(level, layerName, message, null, 0);
+    }
+
+    public boolean write(Level level, String layerName, String message, Throwable thrown) {
+        // Stack Trace Printed on Writer Thread After Message
+        return write(level, layerName, message, null, 0, thrown);
+    }
+
+    public boolean write(Level level, String layerName, String message, byte[] dataArray, int dataLength) {
+        return write(level, layerName, message, dataArray, dataLength, null);
+    }
+
+    private boolean write(Level level, String layerName, String message, byte[] dataArray, int dataLength, Throwable thrown) {
+        // Never Blocks Caller, Entry is Dropped When Writer Falls Behind
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= entryList.length) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        Entry entry = entryList[(int) (claimed & mask)];
+        entry.level = level;
+        entry.layerName = layerName;
+        entry.message = message;
+        entry.dataArray = dataArray;
+        entry.dataLength = dataLength;
+        entry.thrown = thrown;
+        entry.sequence = claimed + 1; // Publish
+
+        if (waiting) LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    public synchronized void flush() {
+        // Drains on Caller's Thread, Used at Exit and Before Reading Output
+        drain();
+        System.out.flush();
+        System.err.flush();
+    }
+
+    private synchronized int drain() {
+        int count = 0;
+        long head;
+        Entry entry;
+        while ((entry = entryList[(int) ((head = this.head.get()) & mask)]).sequence == head + 1) {
+            PrintStream stream = entry.level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            if (entry.message != null) stream.printf("[%s] %s\n", entry.layerName, entry.message);
+            if (entry.dataArray != null) stream.println(formatHex(entry.layerName, entry.dataArray, entry.dataLength));
+            if (entry.thrown != null) entry.thrown.printStackTrace(stream);
+            entry.message = null;
+            entry.dataArray = null;
+            entry.thrown = null;
+            this.head.lazySet(head + 1);
+            count++;
+        }
+        return count;
+    }
+
+    private static String formatHex(String layerName, byte[] dataArray, int dataLength) {
+        StringBuilder stringBuilder = new StringBuilder(String.format("[%s]", layerName));
+        for (int index = 0; index < dataLength; index++) {
+            stringBuilder.append(String.format(" %02X", dataArray[index]));
+            if ((index + 1) % 8 == 0 && (index + 1) < dataLength)
+                stringBuilder.append(String.format("\n[%s]", layerName));
+        }
+        return stringBuilder.toString();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (drain() > 0) continue;
+            waiting = true;
+            if (head.get() == tail.get()) LockSupport.parkNanos(this, PARK_NANOS);
+            waiting = false;
+        }
+    }
+
+    public enum Level {
+        DEBUG, // Per Frame Detail, Off by Default
+        INFO,
+        WARN,
+        ERROR,
+        OFF
+    }
+
+    private static class Entry {
+
+        volatile long sequence = 0; // Claimed Position + 1 Once Filled
+        Level level;
+        String layerName;
+        String message;
+        byte[] dataArray; // Hex Dump, Copied by Caller
+        int dataLength;
+        Throwable thrown;
+
+    }
+
+}
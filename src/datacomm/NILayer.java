@@ -1,16 +1,23 @@
 package datacomm;
 
 import org.jnetpcap.Pcap;
+import org.jnetpcap.PcapBpfProgram;
 import org.jnetpcap.PcapIf;
 import org.jnetpcap.packet.PcapPacketHandler;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.net.NetworkInterface;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 
 public class NILayer extends BaseLayer {
 
+    private static final int DEFAULT_MTU = 1500;
+    private static final int POOL_SIZE = 256;
+    private static final int DEFAULT_RING_CAPACITY = 4096;
+
     static {
         try {
             String jNetPcap;
@@ -38,9 +45,17 @@ public class NILayer extends BaseLayer {
 
     private final ArrayList<PcapIf> pcapInterfaceList = new ArrayList<>();
     private final StringBuilder errorStringBuilder = new StringBuilder();
+    private volatile FrameBufferPool frameBufferPool = new FrameBufferPool(14 + DEFAULT_MTU, POOL_SIZE, true); // Ethernet Header + MTU
+    private volatile int mtu = DEFAULT_MTU;
     private Pcap pcapObject = null;
+    private String filterExpression = null;
     private PcapIf pcapInterface = null;
     private Thread receiveThread = null;
+    private ReceiveThread receiveTask = null;
+    private Thread workerThread = null;
+    private FrameRing frameRing = null;
+    private int ringCapacity = DEFAULT_RING_CAPACITY;
+    private FrameRing.Policy ringPolicy = FrameRing.Policy.DROP;
 
     public NILayer(String layerName) {
         super(layerName);
@@ -51,8 +66,26 @@ public class NILayer extends BaseLayer {
         if (receiveThread != null)
             if (receiveThread.isAlive()) {
                 receiveThread.interrupt();
+                pcapObject.breakloop();
             }
+        if (workerThread != null)
+            if (workerThread.isAlive())
+                workerThread.interrupt();
         receiveThread = null;
+        workerThread = null;
+    }
+
+    public void setRingCapacity(int ringCapacity) {
+        // Applied on Next setInterface
+        this.ringCapacity = ringCapacity;
+    }
+
+    public void setRingPolicy(FrameRing.Policy ringPolicy) {
+        this.ringPolicy = ringPolicy;
+    }
+
+    public FrameRing getFrameRing() {
+        return frameRing;
     }
 
     public ArrayList<PcapIf> getInterfaceList() {
@@ -89,12 +122,49 @@ public class NILayer extends BaseLayer {
             printError("cannot read network interface card\n" + errorStringBuilder);
     }
 
+    private int getInterfaceMTU(PcapIf pcapIf) {
+        // Pcap Does Not Report MTU, Matching java.net Interface Found by Name or MAC
+        try {
+            NetworkInterface networkInterface = NetworkInterface.getByName(pcapIf.getName());
+            byte[] hardwareAddress = pcapIf.getHardwareAddress();
+            Enumeration<NetworkInterface> interfaceList = NetworkInterface.getNetworkInterfaces();
+            while (networkInterface == null && hardwareAddress != null && interfaceList.hasMoreElements()) {
+                NetworkInterface candidate = interfaceList.nextElement();
+                if (Arrays.equals(hardwareAddress, candidate.getHardwareAddress())) networkInterface = candidate;
+            }
+            if (networkInterface != null && networkInterface.getMTU() > 0) return networkInterface.getMTU();
+        } catch (IOException e) {
+            printError("cannot read MTU of interface " + pcapIf.getName());
+        }
+        return DEFAULT_MTU;
+    }
+
     public void setInterface(String interfaceName) {
+        reset(); // Stop Capture on Previous Interface
+        closeInterface();
         pcapInterface = getInterface(interfaceName);
+        if (pcapInterface == null) {
+            printError("unknown interface " + interfaceName);
+            return;
+        }
+
+        // Jumbo Frames Need Bigger Buffers, Pool Rebuilt Only When Size Changes
+        mtu = getInterfaceMTU(pcapInterface);
+        print("interface MTU : " + mtu);
+        if (frameBufferPool.getFrameSize() != 14 + mtu)
+            frameBufferPool = new FrameBufferPool(14 + mtu, POOL_SIZE, true);
         capturePacket();
         receive();
     }
 
+    private void closeInterface() {
+        // Capture Thread Closes Handle Once Its Loop Returns, Closing Under Running Loop Would Crash
+        if (receiveTask != null) receiveTask.closeOnExit();
+        else if (pcapObject != null) pcapObject.close();
+        receiveTask = null;
+        pcapObject = null;
+    }
+
     private String parseMACAddress(byte[] byteMACAddress) {
         if (byteMACAddress == null)
             return "";
@@ -114,50 +184,156 @@ public class NILayer extends BaseLayer {
         int flags = Pcap.MODE_PROMISCUOUS; // capture all packets
         int timeout = 10 * 1000; // 10 seconds in millis
         pcapObject = Pcap.openLive(pcapInterface.getName(), snaplen, flags, timeout, errorStringBuilder);
+        if (pcapObject == null) {
+            printError("cannot open interface " + pcapInterface.getName() + "\n" + errorStringBuilder);
+            return;
+        }
+        applyFilter();
+    }
+
+    private synchronized boolean applyFilter() {
+        // Kernel Drops Foreign Frames Before They are Copied Into Java
+        if (pcapObject == null || filterExpression == null) return true;
+
+        PcapBpfProgram program = new PcapBpfProgram();
+        if (pcapObject.compile(program, filterExpression, 1, 0) != Pcap.OK) {
+            printError("cannot compile filter \"" + filterExpression + "\" : " + pcapObject.getErr());
+            return false;
+        }
+        int result = pcapObject.setFilter(program);
+        Pcap.freecode(program);
+        if (result != Pcap.OK) {
+            printError("cannot install filter : " + pcapObject.getErr());
+            return false;
+        }
+        print("filter installed : " + filterExpression);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean setFilter(String filterExpression) {
+        // Recompiled Right Away if Interface is Open, Otherwise on setInterface
+        this.filterExpression = filterExpression;
+        return applyFilter();
+    }
+
+    @Override
+    public int getMTU() {
+        return mtu;
     }
 
     @Override
     public boolean send(byte[] dataArray, int dataLength) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(dataArray);
-        if (pcapObject.sendPacket(byteBuffer) != Pcap.OK) {
+        FrameBuffer frameBuffer = getFrameBuffer();
+        frameBuffer.put(dataArray, 0, dataLength);
+        return send(frameBuffer);
+    }
+
+    @Override
+    public FrameBuffer getFrameBuffer() {
+        return frameBufferPool.acquire();
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        // Direct Buffer is Handed to Native Send As Is, Reused Once Send Returns
+        int length = frameBuffer.length();
+        int result = pcapObject.sendPacket(frameBuffer.getByteBuffer());
+        frameBuffer.release();
+        if (result != Pcap.OK) {
+            getMetrics().dropped();
             printError(pcapObject.getErr());
             return false;
         }
+        getMetrics().sent(length);
         return true;
     }
 
     @Override
     public boolean receive() {
-        if (receiveThread != null)
-            if (receiveThread.isAlive())
-                receiveThread.interrupt();
-        receiveThread = new Thread(new ReceiveThread(pcapObject, getUpperLayer(0)));
+        reset();
+        frameRing = new FrameRing(ringCapacity, 14 + mtu, ringPolicy);
+        receiveTask = new ReceiveThread(pcapObject, frameRing, getMetrics());
+        receiveThread = new Thread(receiveTask, "NI-capture");
+        workerThread = new Thread(new WorkerThread(frameRing, getUpperLayer(0), getMetrics()), "NI-worker");
+        workerThread.start();
         receiveThread.start();
         return false;
     }
 
-    private class ReceiveThread implements Runnable {
+    private static class ReceiveThread implements Runnable {
 
         private final Pcap pcapObject;
-        private final LayerInterface upperLayer;
-        private byte[] data;
+        private final FrameRing frameRing;
+        private final LayerMetrics metrics;
+        private boolean closing = false; // Handle Retired, Guarded by This
+        private boolean exited = false;
 
-        public ReceiveThread(Pcap pcapObject, LayerInterface layer) {
+        public ReceiveThread(Pcap pcapObject, FrameRing frameRing, LayerMetrics metrics) {
             this.pcapObject = pcapObject;
-            this.upperLayer = layer;
+            this.frameRing = frameRing;
+            this.metrics = metrics;
         }
 
         @Override
         public void run() {
-            while (true) {
-                PcapPacketHandler<String> jPacketHandler = (packet, user) -> {
-                    data = packet.getByteArray(0, packet.size());
-                    upperLayer.receive(data);
-//                    new Thread(() -> upperLayer.receive(data)).start();
-                };
+            // Capture Callback Only Copies Frame Into Ring, Never Waits on Upper Layers
+            PcapPacketHandler<String> jPacketHandler = (packet, user) -> {
+                int length = packet.size();
+                if (length > frameRing.getSlotSize()) {
+                    frameRing.drop();
+                    metrics.dropped();
+                    return;
+                }
+                byte[] slot = frameRing.claim();
+                if (slot == null) {
+                    metrics.dropped();
+                    return;
+                }
+                packet.getByteArray(0, slot, 0, length);
+                frameRing.publish(length);
+            };
+            while (!Thread.currentThread().isInterrupted())
                 pcapObject.loop(100000, jPacketHandler, "");
+            synchronized (this) {
+                exited = true;
+                if (closing) pcapObject.close();
+            }
+        }
+
+        synchronized void closeOnExit() {
+            // Interface Switched, Handle Closed Now if Loop Already Returned
+            closing = true;
+            if (exited) pcapObject.close();
+        }
+
+    }
+
+    private static class WorkerThread implements Runnable {
+
+        private final FrameRing frameRing;
+        private final LayerInterface upperLayer;
+        private final LayerMetrics metrics;
+
+        public WorkerThread(FrameRing frameRing, LayerInterface layer, LayerMetrics metrics) {
+            this.frameRing = frameRing;
+            this.upperLayer = layer;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            // Protocol Processing Off the Capture Thread
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    byte[] frame = frameRing.take();
+                    metrics.received(frame.length);
+                    upperLayer.receive(frame);
+                } catch (InterruptedException e) {
+                    return;
+                }
             }
         }
 
     }
-}
\ No newline at end of file
+}
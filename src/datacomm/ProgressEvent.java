@@ -0,0 +1,81 @@
+package datacomm;
+
+public class ProgressEvent {
+
+    private final int transferId;
+    private final long peerAddress;
+    private final Direction direction;
+    private final long bytesDone;
+    private final long totalBytes;
+    private final double throughput; // Bytes per Second Since Previous Event
+    private final double averageThroughput; // Bytes per Second Since Start
+    private final long eta; // Milliseconds, -1 While Unknown
+    private final boolean done;
+
+    public ProgressEvent(int transferId, long peerAddress, Direction direction, long bytesDone, long totalBytes,
+                         double throughput, double averageThroughput, long eta, boolean done) {
+        this.transferId = transferId;
+        this.peerAddress = peerAddress;
+        this.direction = direction;
+        this.bytesDone = bytesDone;
+        this.totalBytes = totalBytes;
+        this.throughput = throughput;
+        this.averageThroughput = averageThroughput;
+        this.eta = eta;
+        this.done = done;
+    }
+
+    public int getTransferId() {
+        return transferId;
+    }
+
+    public long getPeerAddress() {
+        return peerAddress;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getPercent() {
+        // Long Arithmetic, Multiplied Before Divided
+        return totalBytes <= 0 ? (done ? 100 : 0) : (int) (bytesDone * 100 / totalBytes);
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getAverageThroughput() {
+        return averageThroughput;
+    }
+
+    public long getETA() {
+        return eta;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %d/%d bytes (%d%%) %.1f KB/s avg %.1f KB/s eta %s", transferId,
+                direction == Direction.SEND ? "to" : "from", bytesDone, totalBytes, getPercent(),
+                throughput / 1024, averageThroughput / 1024, eta < 0 ? "?" : (eta / 1000.0) + "s");
+    }
+
+    public enum Direction {
+        SEND,
+        RECEIVE
+    }
+
+}
@@ -0,0 +1,7 @@
+package datacomm;
+
+public interface ProgressListener {
+
+    void onProgress(ProgressEvent event); // Called on Transfer's Own Thread, Hand Off Before Slow Work
+
+}
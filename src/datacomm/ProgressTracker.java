@@ -0,0 +1,71 @@
+package datacomm;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ProgressTracker {
+
+    private static final double SMOOTHING = 0.3; // Weight of Newest Sample in ETA Rate
+
+    private final int transferId;
+    private final long peerAddress;
+    private final ProgressEvent.Direction direction;
+    private final long totalBytes;
+    private final long interval; // Nanoseconds Between Events
+    private final List<ProgressListener> listenerList;
+    private final long startTime = System.nanoTime();
+
+    // Updated by One Thread per Transfer, Sender Loop or Synchronized Receive
+    private long lastTime = startTime;
+    private long lastBytes = 0;
+    private long nextTime;
+    private double smoothedRate = 0;
+    private boolean done = false;
+
+    public ProgressTracker(int transferId, long peerAddress, ProgressEvent.Direction direction, long totalBytes,
+                           int rate, List<ProgressListener> listenerList) {
+        this.transferId = transferId;
+        this.peerAddress = peerAddress;
+        this.direction = direction;
+        this.totalBytes = totalBytes;
+        this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        this.listenerList = listenerList;
+        this.nextTime = startTime + interval;
+    }
+
+    public void update(long bytesDone) {
+        // Called per Fragment, Costs One Clock Read Unless Event is Due
+        if (done || listenerList.isEmpty()) return;
+        long now = System.nanoTime();
+        if (now - nextTime < 0) return;
+        publish(now, bytesDone, false);
+    }
+
+    public void finish(long bytesDone) {
+        // Final Event Always Goes Out, Whatever the Rate
+        if (done) return;
+        done = true;
+        if (!listenerList.isEmpty()) publish(System.nanoTime(), bytesDone, true);
+    }
+
+    private void publish(long now, long bytesDone, boolean done) {
+        double elapsed = (now - lastTime) / 1e9;
+        double throughput = elapsed > 0 ? (bytesDone - lastBytes) / elapsed : 0;
+        double averageThroughput = now > startTime ? bytesDone / ((now - startTime) / 1e9) : 0;
+        smoothedRate = smoothedRate == 0 ? throughput : smoothedRate + SMOOTHING * (throughput - smoothedRate);
+
+        long eta = -1;
+        if (done) eta = 0;
+        else if (smoothedRate > 0) eta = (long) ((totalBytes - bytesDone) / smoothedRate * 1000);
+
+        ProgressEvent event = new ProgressEvent(transferId, peerAddress, direction, bytesDone, totalBytes,
+                throughput, averageThroughput, eta, done);
+        for (ProgressListener listener : listenerList)
+            listener.onProgress(event);
+
+        lastTime = now;
+        lastBytes = bytesDone;
+        nextTime = now + interval;
+    }
+
+}
@@ -0,0 +1,47 @@
+package datacomm;
+
+import java.util.concurrent.TimeUnit;
+
+public class RTOEstimator {
+
+    // Jacobson/Karels as in RFC 6298, Bounds Tightened for LAN Round Trips
+    private static final long INITIAL_RTO = TimeUnit.MILLISECONDS.toNanos(200); // Until First Sample
+    private static final long MIN_RTO = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MAX_RTO = TimeUnit.SECONDS.toNanos(2);
+    private static final long GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1); // Timer Wheel Tick
+
+    private long srtt = 0; // Nanoseconds, 0 Until First Sample
+    private long rttvar = 0;
+    private long rto = INITIAL_RTO;
+
+    public synchronized void sample(long rtt) {
+        // Only Frames Sent Once Give Samples, Karn's Rule Kept by Caller
+        if (srtt == 0) {
+            srtt = Math.max(1, rtt);
+            rttvar = rtt / 2;
+        } else {
+            rttvar += (Math.abs(srtt - rtt) - rttvar) / 4; // Beta 1/4
+            srtt = Math.max(1, srtt + (rtt - srtt) / 8); // Alpha 1/8
+        }
+        // Variance Floor of Half SRTT, Scheduling Jitter Alone Should Not Fire Timeouts
+        rto = Math.min(MAX_RTO, Math.max(MIN_RTO, srtt + Math.max(Math.max(GRANULARITY, srtt / 2), 4 * rttvar)));
+    }
+
+    public synchronized long getTimeout(int retries) {
+        // Doubled per Retransmission of Same Frame, Capped
+        return retries >= 16 ? MAX_RTO : Math.min(MAX_RTO, rto << retries);
+    }
+
+    public synchronized long getSRTT() {
+        return srtt;
+    }
+
+    public synchronized long getRTTVAR() {
+        return rttvar;
+    }
+
+    public synchronized long getRTO() {
+        return rto;
+    }
+
+}
@@ -0,0 +1,163 @@
+package datacomm;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class TimerWheel {
+
+    private static final int DEFAULT_WHEEL_SIZE = 512; // Slots, Power of Two
+    private static final long DEFAULT_TICK = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int WORKER_THREADS = 4;
+    private static final int WORKER_QUEUE = 1024;
+    private static final TimerWheel INSTANCE = new TimerWheel(DEFAULT_WHEEL_SIZE, DEFAULT_TICK);
+
+    private final Timeout[] wheel; // Head of Each Slot's List, Touched by Worker Only
+    private final int mask;
+    private final long tickDuration; // Nanoseconds
+    private final long startTime = System.nanoTime();
+    private final ConcurrentLinkedQueue<Timeout> pendingList = new ConcurrentLinkedQueue<>(); // Scheduled, Not Yet in Wheel
+    private final Thread workerThread;
+    private final ThreadPoolExecutor executor; // Blocking Follow-up of Timer Tasks
+    private volatile boolean waiting = false;
+    private long tick = 0;
+    private int count = 0; // Timeouts in Wheel, Cancelled Ones Until Their Slot Comes Up
+
+    private TimerWheel(int wheelSize, long tickDuration) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        wheel = new Timeout[size];
+        mask = size - 1;
+        this.tickDuration = tickDuration;
+
+        workerThread = new Thread(this::run, "timer-wheel");
+        workerThread.setDaemon(true);
+        workerThread.start();
+
+        // Full Queue Runs Task on Caller, Slower but Nothing is Lost
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(WORKER_QUEUE), task -> {
+            Thread thread = new Thread(task, "timer-worker");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static TimerWheel getInstance() {
+        return INSTANCE;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        // O(1) From Any Thread, Worker Files It Into Its Slot on Next Tick
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay)));
+        pendingList.add(timeout);
+        if (waiting) LockSupport.unpark(workerThread);
+        return timeout;
+    }
+
+    public void execute(Runnable task) {
+        // Sends, File Reads and Anything Else That May Block, Timer Tasks Hand Them Over Here
+        executor.execute(task);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            // Idle Wheel Parks Until Something is Scheduled Instead of Ticking
+            if (count == 0 && pendingList.isEmpty()) {
+                waiting = true;
+                if (pendingList.isEmpty()) LockSupport.park(this);
+                waiting = false;
+                tick = Math.max(tick, (System.nanoTime() - startTime) / tickDuration);
+                continue;
+            }
+
+            long deadline = (tick + 1) * tickDuration;
+            long sleepTime = deadline - (System.nanoTime() - startTime);
+            if (sleepTime > 0) {
+                LockSupport.parkNanos(this, sleepTime);
+                continue;
+            }
+            transferPending();
+            expire(tick++);
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingList.poll()) != null) {
+            if (timeout.isCancelled()) continue;
+            // Slot by Deadline, Rounds Count Full Turns Still Ahead
+            long ticks = Math.max(timeout.deadline / tickDuration, tick);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            int index = (int) (ticks & mask);
+            timeout.next = wheel[index];
+            wheel[index] = timeout;
+            count++;
+        }
+    }
+
+    private void expire(long tick) {
+        int index = (int) (tick & mask);
+        Timeout previous = null;
+        Timeout timeout = wheel[index];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean remove = timeout.isCancelled();
+            if (!remove && timeout.remainingRounds-- <= 0) {
+                remove = true;
+                timeout.expire();
+            }
+            if (remove) {
+                if (previous == null) wheel[index] = next;
+                else previous.next = next;
+                timeout.next = null;
+                count--;
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    public static class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline; // Nanoseconds Since Wheel Start
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            // O(1), Left in Slot and Unlinked When Worker Passes By
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void expire() {
+            // Runs on Worker Thread, Tasks Must Not Block
+            if (!state.compareAndSet(PENDING, EXPIRED)) return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LogWriter.getInstance().write(LogWriter.Level.ERROR, "TimerWheel", "task failed", e);
+            }
+        }
+
+    }
+
+}
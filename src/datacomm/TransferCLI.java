@@ -0,0 +1,203 @@
+package datacomm;
+
+import org.jnetpcap.PcapIf;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class TransferCLI {
+
+    private static final String USAGE = String.join("\n",
+            "usage: TransferCLI list",
+            "       TransferCLI [options] send <file>...",
+            "       TransferCLI [options] receive",
+            "options:",
+            "  -i <interface>   capture interface (required for send and receive)",
+            "  -s <mac>         source address, defaults to interface address",
+            "  -d <mac>         peer address (required for send)",
+            "  -o <directory>   where received files go, default current directory",
+            "  -n <count>       files to receive before exiting, default 1, 0 for no limit",
+            "  -t <seconds>     give up receiving after this long, default 0 for no limit",
+            "  -f               overwrite existing files on receive",
+            "  -c               compress file data, peer needs -c as well",
+            "  -p               print progress to stderr");
+
+    private String interfaceName = null;
+    private String sourceAddress = null;
+    private String destinationAddress = null;
+    private File outputDirectory = new File(".");
+    private int receiveCount = 1;
+    private long timeout = 0; // Seconds
+    private boolean overwrite = false;
+    private boolean compressionEnabled = false;
+    private boolean progressEnabled = false;
+    private String command = null;
+    private final ArrayList<String> fileList = new ArrayList<>();
+
+    public static void main(String[] args) {
+        TransferCLI transferCLI = new TransferCLI();
+        int status;
+        try {
+            status = transferCLI.parse(args) ? transferCLI.run() : 2;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            status = 2;
+        }
+        LogWriter.getInstance().flush();
+        System.exit(status);
+    }
+
+    private boolean parse(String[] args) {
+        for (int index = 0; index < args.length; index++) {
+            String arg = args[index];
+            if (command != null) {
+                fileList.add(arg);
+                continue;
+            }
+            switch (arg) {
+                case "-i":
+                    interfaceName = value(args, ++index);
+                    break;
+                case "-s":
+                    sourceAddress = value(args, ++index);
+                    break;
+                case "-d":
+                    destinationAddress = value(args, ++index);
+                    break;
+                case "-o":
+                    outputDirectory = new File(value(args, ++index));
+                    break;
+                case "-n":
+                    receiveCount = Integer.parseInt(value(args, ++index));
+                    break;
+                case "-t":
+                    timeout = Long.parseLong(value(args, ++index));
+                    break;
+                case "-f":
+                    overwrite = true;
+                    break;
+                case "-c":
+                    compressionEnabled = true;
+                    break;
+                case "-p":
+                    progressEnabled = true;
+                    break;
+                case "list":
+                case "send":
+                case "receive":
+                    command = arg;
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    return false;
+            }
+        }
+
+        // Command Decides Which Options are Needed
+        boolean valid = command != null;
+        if ("send".equals(command)) valid = interfaceName != null && destinationAddress != null && !fileList.isEmpty();
+        if ("receive".equals(command)) valid = interfaceName != null && fileList.isEmpty() && outputDirectory.isDirectory();
+        if (!valid) System.err.println(USAGE);
+        return valid;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("missing value for " + args[index - 1]);
+        return args[index];
+    }
+
+    private int run() {
+        NILayer niLayer = new NILayer("NI");
+        if (command.equals("list")) {
+            for (PcapIf pcapIf : niLayer.getInterfaceList())
+                System.out.println(pcapIf.getName() + "\t" + niLayer.getInterfaceMACAddress(pcapIf.getName()) + "\t" + pcapIf.getDescription());
+            return 0;
+        }
+
+        boolean found = false;
+        for (PcapIf pcapIf : niLayer.getInterfaceList())
+            found |= pcapIf.getName().equals(interfaceName);
+        if (!found) throw new IllegalArgumentException("unknown interface " + interfaceName);
+
+        TransferEngine engine = new TransferEngine("CLI", niLayer, compressionEnabled);
+        engine.setSourceAddress(EthernetLayer.parseAddress(sourceAddress != null ? sourceAddress : niLayer.getInterfaceMACAddress(interfaceName)));
+        if (destinationAddress != null) engine.setDestinationAddress(EthernetLayer.parseAddress(destinationAddress));
+        if (progressEnabled) engine.addProgressListener(event -> System.err.println(event));
+        niLayer.setInterface(interfaceName);
+        try {
+            return command.equals("send") ? send(engine) : receive(engine);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            niLayer.reset();
+            engine.close();
+        }
+    }
+
+    private int send(TransferEngine engine) {
+        // Files Go One After Another, Each Waits for Receiver's Digest Check
+        int failedCount = 0;
+        long totalBytes = 0;
+        long startTime = System.nanoTime();
+        for (String filePath : fileList) {
+            long fileStartTime = System.nanoTime();
+            boolean sent = engine.sendFile(filePath);
+            long length = new File(filePath).length();
+            if (sent) totalBytes += length;
+            else failedCount++;
+            System.out.println((sent ? "sent " : "failed ") + filePath + " " + formatRate(length, System.nanoTime() - fileStartTime));
+        }
+        System.out.printf("sent %d of %d files, %s\n", fileList.size() - failedCount, fileList.size(),
+                formatRate(totalBytes, System.nanoTime() - startTime));
+        return failedCount == 0 ? 0 : 1;
+    }
+
+    private int receive(TransferEngine engine) throws InterruptedException {
+        // Clock Starts With First File, Idle Wait Before It Does Not Count
+        engine.setAcceptPolicy(TransferEngine.AcceptPolicy.saveTo(outputDirectory, overwrite));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        long startTime = 0;
+        long totalBytes = 0;
+        int count = 0;
+        int failedCount = 0;
+        ArrivalListener arrivalListener = new ArrivalListener();
+        engine.addProgressListener(arrivalListener);
+        while (receiveCount == 0 || count < receiveCount) {
+            long remaining = timeout > 0 ? deadline - System.nanoTime() : TimeUnit.SECONDS.toNanos(1);
+            if (remaining <= 0) break;
+            TransferEngine.ReceivedFile receivedFile = engine.pollReceived(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+            if (receivedFile == null) continue;
+
+            count++;
+            if (startTime == 0) startTime = arrivalListener.firstTime;
+            if (receivedFile.isVerified()) totalBytes += receivedFile.getLength();
+            else failedCount++;
+            System.out.println((receivedFile.isVerified() ? "received " : "corrupt ") + receivedFile.getFilePath());
+        }
+        System.out.printf("received %d files, %d failed, %s\n", count, failedCount,
+                formatRate(totalBytes, count > 0 ? System.nanoTime() - startTime : 0));
+        return failedCount == 0 && (receiveCount == 0 || count == receiveCount) ? 0 : 1;
+    }
+
+    private static String formatRate(long bytes, long elapsed) {
+        double seconds = elapsed / 1e9;
+        double rate = seconds > 0 ? bytes / seconds : 0;
+        return String.format("%d bytes in %.3f s (%.1f KB/s)", bytes, seconds, rate / 1024);
+    }
+
+    private static class ArrivalListener implements ProgressListener {
+
+        volatile long firstTime = 0; // When First Transfer Started Receiving Data
+
+        @Override
+        public void onProgress(ProgressEvent event) {
+            // Bytes Over Average Throughput is Time Since Tracker Started
+            if (firstTime == 0 && event.getDirection() == ProgressEvent.Direction.RECEIVE)
+                firstTime = System.nanoTime() - (long) (event.getBytesDone() / Math.max(1, event.getAverageThroughput()) * 1e9);
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package datacomm;
+
+import java.io.File;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class TransferEngine extends BaseLayer implements FileAppLayer.FileListener {
+
+    private final LayerManager layerManager = new LayerManager();
+    private final LinkedBlockingQueue<ReceivedFile> receivedList = new LinkedBlockingQueue<>();
+    private volatile AcceptPolicy acceptPolicy = AcceptPolicy.rejectAll();
+    private volatile MessageListener messageListener = null;
+
+    public TransferEngine(String layerName, LayerInterface linkLayer) {
+        this(layerName, linkLayer, false);
+    }
+
+    public TransferEngine(String layerName, LayerInterface linkLayer, boolean compressionEnabled) {
+        super(layerName);
+
+        // Same Stack as GUI, Engine Takes UI's Place on Top
+        String linkName = linkLayer.getLayerName();
+        layerManager.addLayer(linkLayer);
+        layerManager.addLayer(new EthernetLayer("Ethernet"));
+        layerManager.addLayer(new ChatAppLayer("ChatApp"));
+        layerManager.addLayer(new FileAppLayer("FileApp"));
+        layerManager.addLayer(this);
+        if (compressionEnabled) {
+            // Both Peers Need Compression, It Runs on Its Own EtherTypes
+            layerManager.addLayer(new CompressionLayer("Compression"));
+            layerManager.connectLayers(" " + linkName + " ( *Ethernet ( *ChatApp ( *" + layerName + " ) *Compression ( *FileApp ( *" + layerName + " ) ) ) )");
+        } else {
+            layerManager.connectLayers(" " + linkName + " ( *Ethernet ( *ChatApp ( *" + layerName + " ) *FileApp ( *" + layerName + " ) ) )");
+        }
+    }
+
+    public LayerManager getLayerManager() {
+        return layerManager;
+    }
+
+    public EthernetLayer getEthernetLayer() {
+        return (EthernetLayer) layerManager.getLayer("Ethernet");
+    }
+
+    public ChatAppLayer getChatAppLayer() {
+        return (ChatAppLayer) layerManager.getLayer("ChatApp");
+    }
+
+    public FileAppLayer getFileAppLayer() {
+        return (FileAppLayer) layerManager.getLayer("FileApp");
+    }
+
+    public void setSourceAddress(long sourceAddress) {
+        getEthernetLayer().setSourceAddress(sourceAddress);
+    }
+
+    public void setDestinationAddress(long destinationAddress) {
+        getEthernetLayer().setDestinationAddress(destinationAddress);
+    }
+
+    public void setAcceptPolicy(AcceptPolicy acceptPolicy) {
+        // Decides Every Incoming Transfer, Called Off Receive Thread
+        this.acceptPolicy = acceptPolicy == null ? AcceptPolicy.rejectAll() : acceptPolicy;
+    }
+
+    public void setMessageListener(MessageListener messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    public void addProgressListener(ProgressListener progressListener) {
+        getFileAppLayer().addProgressListener(progressListener);
+    }
+
+    public void removeProgressListener(ProgressListener progressListener) {
+        getFileAppLayer().removeProgressListener(progressListener);
+    }
+
+    public boolean sendMessage(String message) {
+        byte[] data = message.getBytes();
+        return getChatAppLayer().send(data, data.length);
+    }
+
+    public boolean sendMessage(String message, long peerAddress) {
+        byte[] data = message.getBytes();
+        return getChatAppLayer().send(data, data.length, peerAddress);
+    }
+
+    public boolean sendFile(String filePath) {
+        // Blocks Until Receiver Confirms Digest or Transfer Fails
+        return getFileAppLayer().send(filePath);
+    }
+
+    public boolean sendFile(String filePath, long peerAddress) {
+        return getFileAppLayer().send(filePath, peerAddress);
+    }
+
+    public ReceivedFile pollReceived(long timeout, TimeUnit unit) throws InterruptedException {
+        // Null When Nothing Completed Within Timeout
+        return receivedList.poll(timeout, unit);
+    }
+
+    public void close() {
+        layerManager.unregisterMetrics();
+        LogWriter.getInstance().flush();
+    }
+
+    @Override
+    public String acceptFile(long peerAddress, byte[] fileName) {
+        String filePath = acceptPolicy.accept(peerAddress, new String(fileName));
+        print((filePath == null ? "refused " : "accepted ") + new String(fileName) + " from " + EthernetLayer.formatAddress(peerAddress));
+        return filePath;
+    }
+
+    @Override
+    public void fileReceived(String filePath, boolean verified) {
+        if (filePath == null) return;
+        receivedList.add(new ReceivedFile(filePath, new File(filePath).length(), verified));
+    }
+
+    @Override
+    public boolean receive(byte[] dataArray, String layerName) {
+        if (dataArray == null || layerName == null) {
+            printError("null data");
+            return false;
+        }
+
+        // Chat Messages and FileApp Status Lines, Logged Unless Someone Listens
+        MessageListener messageListener = this.messageListener;
+        if (messageListener != null) messageListener.onMessage(layerName, new String(dataArray));
+        else if (isDebugEnabled()) printDebug(layerName + " : " + new String(dataArray));
+        return true;
+    }
+
+    public interface AcceptPolicy {
+
+        String accept(long peerAddress, String fileName); // Destination Path, Null Refuses Transfer
+
+        static AcceptPolicy rejectAll() {
+            return (peerAddress, fileName) -> null;
+        }
+
+        static AcceptPolicy saveTo(File directory, boolean overwrite) {
+            // Only Base Name of Sender's Path is Kept, Nothing Lands Outside Directory
+            return (peerAddress, fileName) -> {
+                String baseName = new File(fileName.replace('\\', '/')).getName();
+                if (baseName.isEmpty() || baseName.equals(".") || baseName.equals("..")) return null;
+                File file = new File(directory, baseName);
+                if (file.exists() && !overwrite) return null;
+                return file.getAbsolutePath();
+            };
+        }
+
+    }
+
+    public interface MessageListener {
+
+        void onMessage(String layerName, String message);
+
+    }
+
+    public static class ReceivedFile {
+
+        private final String filePath;
+        private final long length;
+        private final boolean verified;
+
+        public ReceivedFile(String filePath, long length, boolean verified) {
+            this.filePath = filePath;
+            this.length = length;
+            this.verified = verified;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public boolean isVerified() {
+            return verified;
+        }
+
+    }
+
+}
@@ -11,7 +11,7 @@ import java.io.File;
 
 import static javax.swing.SwingUtilities.invokeLater;
 
-public class UILayer extends BaseLayer {
+public class UILayer extends BaseLayer implements FileAppLayer.FileListener, ProgressListener {
 
     private static final LayerManager LAYER_MANAGER = new LayerManager();
 
@@ -52,7 +52,13 @@ public class UILayer extends BaseLayer {
         LAYER_MANAGER.addLayer(new ChatAppLayer("ChatApp"));
         LAYER_MANAGER.addLayer(new FileAppLayer("FileApp"));
         LAYER_MANAGER.addLayer(new UILayer("GUI"));
-        LAYER_MANAGER.connectLayers(" NI ( *Ethernet ( *ChatApp ( *GUI ) *FileApp ( *GUI ) ) )");
+        if (Boolean.getBoolean("datacomm.compression")) {
+            // Both Peers Need Compression, It Runs on Its Own EtherTypes
+            LAYER_MANAGER.addLayer(new CompressionLayer("Compression"));
+            LAYER_MANAGER.connectLayers(" NI ( *Ethernet ( *ChatApp ( *GUI ) *Compression ( *FileApp ( *GUI ) ) ) )");
+        } else {
+            LAYER_MANAGER.connectLayers(" NI ( *Ethernet ( *ChatApp ( *GUI ) *FileApp ( *GUI ) ) )");
+        }
     }
 
     private JPanel createUIPanel() {
@@ -150,13 +156,9 @@ public class UILayer extends BaseLayer {
                 File file = new File(filePath);
                 if (file.canRead()) {
                     chatTextArea.append("[FILE] : File name \"" + file.getName() + "\"\n" + "[FILE] : Waiting for opponent to accept\n");
-                    new Thread(() -> {
-                        LAYER_MANAGER.getLayer("FileApp").send(filePath);
-                        fileSelectButton.setEnabled(true);
-                        fileSendButton.setEnabled(true);
-                    }).start();
-                    fileSelectButton.setEnabled(false);
-                    fileSendButton.setEnabled(false);
+                    // Buttons Stay Enabled, Every Send Runs as Separate Transfer
+                    String sendPath = filePath;
+                    new Thread(() -> LAYER_MANAGER.getLayer("FileApp").send(sendPath)).start();
                 } else {
                     chatTextArea.append("[FILE] : Cannot read file name \"" + file.getName() + "\"\n");
                     fileSelectButton.setEnabled(true);
@@ -206,6 +208,16 @@ public class UILayer extends BaseLayer {
         sourceAddressField.setEditable(false);
         destinationAddressLabel.setPreferredSize(settingDefaultDimension);
         destinationAddressField.setPreferredSize(settingDefaultDimension);
+        destinationAddressField.addActionListener(actionEvent -> {
+            // Switch Peer While Running, No Reset Needed
+            if (!settingButton.getText().equals("Reset")) return;
+            byte[] dstByteAddr = new byte[6];
+            String[] dstAddr = destinationAddressField.getText().split("-");
+            for (int index = 0; index < 6; index++)
+                dstByteAddr[index] = (byte) Integer.parseInt(dstAddr[index], 16);
+            ((EthernetLayer) LAYER_MANAGER.getLayer("Ethernet")).setDestinationAddress(dstByteAddr);
+            chatTextArea.append("[INFO] : Talking to " + destinationAddressField.getText() + "\n");
+        });
         settingButton.setPreferredSize(settingDefaultDimension);
         settingButton.addActionListener(actionEvent -> {
             if (settingButton.getText().equals("Reset")) {
@@ -233,7 +245,6 @@ public class UILayer extends BaseLayer {
                 settingButton.setText("Reset");
                 networkInterfaceComboBox.setEnabled(false);
                 sourceAddressField.setEnabled(false);
-                destinationAddressField.setEnabled(false);
             }
         });
 
@@ -248,21 +259,42 @@ public class UILayer extends BaseLayer {
         return settingPanel;
     }
 
-    public void updateProgress(int value) {
+    @Override
+    public void onProgress(ProgressEvent event) {
+        // At Most a Few Events per Second Reach Event Queue
         invokeLater(new Runnable() {
             @Override
             public void run() {
-                fileProgressBar.setValue(value);
-                System.out.println(value);
+                fileProgressBar.setValue(event.getPercent());
+                fileProgressBar.setString(event.isDone() ? null : String.format("%d%%  %.1f KB/s  %s",
+                        event.getPercent(), event.getThroughput() / 1024, formatETA(event.getETA())));
+                fileProgressBar.setStringPainted(!event.isDone());
             }
         });
     }
 
+    private static String formatETA(long eta) {
+        if (eta < 0) return "--:--";
+        long seconds = (eta + 999) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
     public void unlockFileUI() {
         fileSelectButton.setEnabled(true);
         fileSendButton.setEnabled(true);
     }
 
+    @Override
+    public String acceptFile(long peerAddress, byte[] fileName) {
+        JFileChooser fileChooser = openReceiveDialog(fileName);
+        return fileChooser == null ? null : fileChooser.getSelectedFile().getAbsolutePath();
+    }
+
+    @Override
+    public void fileReceived(String filePath, boolean verified) {
+        unlockFileUI();
+    }
+
     public JFileChooser openReceiveDialog(byte[] dataArray) {
         fileSelectButton.setEnabled(false);
         fileSendButton.setEnabled(false);
@@ -277,9 +309,9 @@ public class UILayer extends BaseLayer {
             chatTextArea.append("[FILE] : Saving file as " + fileChooser.getName() + "\n");
             filePathField.setText(fileChooser.getName());
             filePath = fileChooser.getSelectedFile().getAbsolutePath();
-        } else if (fileChooserReturnValue == JFileChooser.CANCEL_OPTION) {
-            fileSelectButton.setEnabled(true);
-            fileSendButton.setEnabled(true);
+        } else {
+            // Cancelled or Closed Dialog Refuses Transfer, Nothing Will Unlock Buttons Later
+            unlockFileUI();
             return null;
         }
         return fileChooser;
@@ -296,7 +328,7 @@ public class UILayer extends BaseLayer {
             return false;
         }
 
-        print("receive : " + String.format("%s from %s", dataArray.toString(), layerName));
+        if (isDebugEnabled()) printDebug("receive : " + dataArray.length + " bytes from " + layerName);
         printHex(dataArray, dataArray.length);
 
         JScrollBar chatTextPaneVerticalScrollBar = chatTextPane.getVerticalScrollBar();
@@ -0,0 +1,255 @@
+package datacomm;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VirtualWireLayer extends BaseLayer {
+
+    private static final int DEFAULT_MTU = 1500;
+    private static final int POOL_SIZE = 256;
+    private static final int DEFAULT_QUEUE_LIMIT = 1000; // Frames Waiting on Wire, Tail Dropped Beyond
+
+    private final DelayQueue<Delivery> deliveryQueue = new DelayQueue<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong lostCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong duplicatedCount = new AtomicLong();
+    private final AtomicLong reorderedCount = new AtomicLong();
+    private volatile FrameBufferPool frameBufferPool = new FrameBufferPool(14 + DEFAULT_MTU, POOL_SIZE, false);
+    private volatile int mtu = DEFAULT_MTU;
+    private VirtualWireLayer peer = null;
+    private Thread deliveryThread = null;
+
+    // Impairments Apply to Frames Sent From This Side
+    private Random random = new Random(0);
+    private long bandwidth = 0; // Bits per Second, 0 for Unlimited
+    private long latency = 0; // Nanoseconds
+    private long jitter = 0; // Nanoseconds, Uniform in [-jitter, +jitter]
+    private double lossRate = 0;
+    private double duplicationRate = 0;
+    private double reorderRate = 0;
+    private int queueLimit = DEFAULT_QUEUE_LIMIT;
+    private long wireFreeTime = 0; // When Last Queued Frame Leaves Sender
+    private long sequenceNumber = 0; // Breaks Ties Between Frames Due at Same Time
+
+    public VirtualWireLayer(String layerName) {
+        super(layerName);
+    }
+
+    public void connect(VirtualWireLayer peer) {
+        // Both Directions Start Delivering Right Away
+        reset();
+        peer.reset();
+        this.peer = peer;
+        peer.peer = this;
+        start();
+        peer.start();
+    }
+
+    private void start() {
+        deliveryThread = new Thread(new DeliveryThread(deliveryQueue, peer, deliveredCount), getLayerName() + "-delivery");
+        deliveryThread.setDaemon(true);
+        deliveryThread.start();
+    }
+
+    public void reset() {
+        // Frames Still on Wire are Lost
+        if (deliveryThread != null && deliveryThread.isAlive())
+            deliveryThread.interrupt();
+        deliveryThread = null;
+        deliveryQueue.clear();
+    }
+
+    public synchronized void setSeed(long seed) {
+        // Same Seed and Same Send Order Give Same Losses, Duplicates and Delays
+        random = new Random(seed);
+    }
+
+    public synchronized void setBandwidth(long bandwidth) {
+        this.bandwidth = Math.max(0, bandwidth);
+    }
+
+    public synchronized void setLatency(long latency, TimeUnit unit) {
+        this.latency = Math.max(0, unit.toNanos(latency));
+    }
+
+    public synchronized void setJitter(long jitter, TimeUnit unit) {
+        this.jitter = Math.max(0, unit.toNanos(jitter));
+    }
+
+    public synchronized void setLossRate(double lossRate) {
+        this.lossRate = lossRate;
+    }
+
+    public synchronized void setDuplicationRate(double duplicationRate) {
+        this.duplicationRate = duplicationRate;
+    }
+
+    public synchronized void setReorderRate(double reorderRate) {
+        // Reordered Frames Skip Latency and Overtake Frames Sent Before Them
+        this.reorderRate = reorderRate;
+    }
+
+    public synchronized void setQueueLimit(int queueLimit) {
+        this.queueLimit = Math.max(1, queueLimit);
+    }
+
+    public void setMTU(int mtu) {
+        this.mtu = mtu;
+        if (frameBufferPool.getFrameSize() != 14 + mtu)
+            frameBufferPool = new FrameBufferPool(14 + mtu, POOL_SIZE, false);
+    }
+
+    @Override
+    public int getMTU() {
+        return mtu;
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long getLostCount() {
+        return lostCount.get();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public long getDuplicatedCount() {
+        return duplicatedCount.get();
+    }
+
+    public long getReorderedCount() {
+        return reorderedCount.get();
+    }
+
+    @Override
+    public boolean setFilter(String filterExpression) {
+        // Nothing Foreign on Wire, Ethernet Checks Addresses and Types Anyway
+        return true;
+    }
+
+    @Override
+    public FrameBuffer getFrameBuffer() {
+        return frameBufferPool.acquire();
+    }
+
+    @Override
+    public boolean send(FrameBuffer frameBuffer, String layerName) {
+        byte[] frame = frameBuffer.toByteArray();
+        frameBuffer.release();
+        return send(frame, frame.length);
+    }
+
+    @Override
+    public synchronized boolean send(byte[] dataArray, int dataLength) {
+        if (peer == null) {
+            printError("wire not connected");
+            return false;
+        }
+        if (dataLength > 14 + mtu) {
+            printError("frame larger than MTU dropped");
+            return false;
+        }
+        sentCount.incrementAndGet();
+
+        // Random Draws in Fixed Order per Frame, Keeps Seeded Runs Repeatable
+        boolean lost = random.nextDouble() < lossRate;
+        boolean duplicated = random.nextDouble() < duplicationRate;
+        boolean reordered = random.nextDouble() < reorderRate;
+        long delay = latency + (jitter > 0 ? (long) ((random.nextDouble() * 2 - 1) * jitter) : 0);
+        getMetrics().sent(dataLength);
+        if (lost) {
+            getMetrics().dropped();
+            lostCount.incrementAndGet();
+            return true; // Sender Can Not Tell
+        }
+        if (deliveryQueue.size() >= queueLimit) {
+            getMetrics().dropped();
+            overflowCount.incrementAndGet();
+            return true;
+        }
+
+        // Frame Occupies Wire for Its Serialization Time, Later Frames Queue Behind It
+        long now = System.nanoTime();
+        wireFreeTime = Math.max(now, wireFreeTime);
+        if (bandwidth > 0) wireFreeTime += dataLength * 8L * TimeUnit.SECONDS.toNanos(1) / bandwidth;
+        if (reordered) reorderedCount.incrementAndGet();
+
+        byte[] frame = Arrays.copyOf(dataArray, dataLength);
+        long deliveryTime = wireFreeTime + (reordered ? 0 : Math.max(0, delay));
+        deliveryQueue.put(new Delivery(frame, deliveryTime, sequenceNumber++));
+        if (duplicated) {
+            duplicatedCount.incrementAndGet();
+            deliveryQueue.put(new Delivery(frame.clone(), deliveryTime, sequenceNumber++));
+        }
+        return true;
+    }
+
+    private static class Delivery implements Delayed {
+
+        final byte[] frame;
+        final long deliveryTime; // System.nanoTime Base
+        final long sequenceNumber;
+
+        public Delivery(byte[] frame, long deliveryTime, long sequenceNumber) {
+            this.frame = frame;
+            this.deliveryTime = deliveryTime;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deliveryTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Delivery delivery = (Delivery) other;
+            if (deliveryTime != delivery.deliveryTime) return deliveryTime < delivery.deliveryTime ? -1 : 1;
+            return Long.compare(sequenceNumber, delivery.sequenceNumber);
+        }
+
+    }
+
+    private static class DeliveryThread implements Runnable {
+
+        private final DelayQueue<Delivery> deliveryQueue;
+        private final VirtualWireLayer peer;
+        private final AtomicLong deliveredCount;
+
+        public DeliveryThread(DelayQueue<Delivery> deliveryQueue, VirtualWireLayer peer, AtomicLong deliveredCount) {
+            this.deliveryQueue = deliveryQueue;
+            this.peer = peer;
+            this.deliveredCount = deliveredCount;
+        }
+
+        @Override
+        public void run() {
+            // Frames Reach Peer's Stack One at a Time, as From NILayer's Worker
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    byte[] frame = deliveryQueue.take().frame;
+                    deliveredCount.incrementAndGet();
+                    peer.getMetrics().received(frame.length);
+                    peer.getUpperLayer(0).receive(frame);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
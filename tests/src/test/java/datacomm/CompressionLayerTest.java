@@ -0,0 +1,92 @@
+package datacomm;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionLayerTest {
+
+    private static final long SEED = 42;
+    private static final long PEER_A = 0x02000000000AL;
+    private static final long PEER_B = 0x02000000000BL;
+    private static final int FRAME_COUNT = 2000;
+    private static final long TIMEOUT = 30; // Seconds
+
+    private static class CaptureLayer extends BaseLayer {
+
+        final List<FrameBuffer> sentList = Collections.synchronizedList(new ArrayList<>());
+
+        public CaptureLayer(String layerName) {
+            super(layerName);
+        }
+
+        @Override
+        public boolean send(FrameBuffer frameBuffer, String layerName) {
+            sentList.add(frameBuffer);
+            return true;
+        }
+
+    }
+
+    private static int frameIndex(FrameBuffer frameBuffer) throws DataFormatException {
+        // Frame Index Rides in First Four Bytes Above Compression Header
+        byte[] frame = frameBuffer.toByteArray();
+        byte[] dataArray = Arrays.copyOfRange(frame, 3, frame.length);
+        if ((frame[0] & 0x01) != 0) {
+            Inflater inflater = new Inflater();
+            inflater.setInput(dataArray);
+            dataArray = new byte[((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF)];
+            assertEquals(dataArray.length, inflater.inflate(dataArray));
+            inflater.end();
+        }
+        return ByteBuffer.wrap(dataArray).getInt();
+    }
+
+    @Test
+    public void framesLeaveInOrderSentPerPeer() throws DataFormatException, InterruptedException {
+        CaptureLayer captureLayer = new CaptureLayer("Capture");
+        CompressionLayer compressionLayer = new CompressionLayer("Compression", 4);
+        compressionLayer.setUnderLayer(captureLayer);
+
+        // Large Compressible Frames Take Longer Than Small Raw Ones Queued Behind Them
+        Random random = new Random(SEED);
+        for (int index = 0; index < FRAME_COUNT; index++) {
+            byte[] dataArray = new byte[random.nextBoolean() ? 1400 : 64];
+            ByteBuffer.wrap(dataArray).putInt(index);
+            FrameBuffer frameBuffer = compressionLayer.getFrameBuffer();
+            frameBuffer.setPeerAddress(index % 3 == 0 ? PEER_B : PEER_A);
+            frameBuffer.put(dataArray, 0, dataArray.length);
+            assertTrue(compressionLayer.send(frameBuffer, "FileApp"));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (captureLayer.sentList.size() < FRAME_COUNT && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(FRAME_COUNT, captureLayer.sentList.size());
+        assertTrue(compressionLayer.getCompressedCount() > 0);
+        assertTrue(compressionLayer.getRawCount() > 0);
+
+        int lastIndexA = -1;
+        int lastIndexB = -1;
+        synchronized (captureLayer.sentList) {
+            for (FrameBuffer frameBuffer : captureLayer.sentList) {
+                boolean peerB = frameBuffer.getPeerAddress() == PEER_B;
+                int index = frameIndex(frameBuffer);
+                assertTrue(index > (peerB ? lastIndexB : lastIndexA), "frame " + index + " sent after a later one");
+                if (peerB) lastIndexB = index;
+                else lastIndexA = index;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package datacomm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualWireTest {
+
+    private static final long SEED = 42;
+    private static final long ADDRESS_A = 0x02000000000AL;
+    private static final long ADDRESS_B = 0x02000000000BL;
+    private static final long TIMEOUT = 30; // Seconds
+    private static final int FILE_LENGTH = 1 << 20;
+    private static final int MESSAGE_COUNT = 300;
+
+    @TempDir
+    Path directory;
+
+    private VirtualWireLayer senderWire;
+    private VirtualWireLayer receiverWire;
+    private TransferEngine sender;
+    private TransferEngine receiver;
+
+    private static VirtualWireLayer newWire(String layerName, long seed) {
+        // Lossy LAN, Every Impairment at Once
+        VirtualWireLayer wire = new VirtualWireLayer(layerName);
+        wire.setSeed(seed);
+        wire.setBandwidth(100_000_000L);
+        wire.setLatency(200, TimeUnit.MICROSECONDS);
+        wire.setJitter(40, TimeUnit.MICROSECONDS);
+        wire.setLossRate(0.02);
+        wire.setDuplicationRate(0.01);
+        wire.setReorderRate(0.05);
+        return wire;
+    }
+
+    private void connect() {
+        senderWire = newWire("WireA", SEED);
+        receiverWire = newWire("WireB", SEED + 1);
+        senderWire.connect(receiverWire);
+        sender = new TransferEngine("A", senderWire);
+        receiver = new TransferEngine("B", receiverWire);
+        sender.setSourceAddress(ADDRESS_A);
+        sender.setDestinationAddress(ADDRESS_B);
+        receiver.setSourceAddress(ADDRESS_B);
+        receiver.setDestinationAddress(ADDRESS_A);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (sender == null) return;
+        sender.close();
+        receiver.close();
+        senderWire.reset();
+        receiverWire.reset();
+    }
+
+    @Test
+    public void fileArrivesIntactThroughLossDuplicationAndReordering() throws IOException, InterruptedException {
+        connect();
+        byte[] dataArray = new byte[FILE_LENGTH];
+        new Random(SEED).nextBytes(dataArray);
+        Path sourcePath = Files.write(directory.resolve("source.bin"), dataArray);
+        Path receivePath = Files.createDirectory(directory.resolve("received"));
+        receiver.setAcceptPolicy(TransferEngine.AcceptPolicy.saveTo(receivePath.toFile(), false));
+
+        assertTrue(sender.sendFile(sourcePath.toString()));
+        TransferEngine.ReceivedFile receivedFile = receiver.pollReceived(TIMEOUT, TimeUnit.SECONDS);
+        assertNotNull(receivedFile);
+        assertTrue(receivedFile.isVerified());
+        assertArrayEquals(dataArray, Files.readAllBytes(Paths.get(receivedFile.getFilePath())));
+
+        // Otherwise Nothing Was Recovered From
+        assertTrue(senderWire.getLostCount() > 0);
+        assertTrue(senderWire.getDuplicatedCount() > 0);
+        assertTrue(senderWire.getReorderedCount() > 0);
+    }
+
+    @Test
+    public void restartedSenderIsNotAnsweredFromFinishedTransfer() throws IOException, InterruptedException {
+        connect();
+        Path receivePath = Files.createDirectory(directory.resolve("received"));
+        receiver.setAcceptPolicy(TransferEngine.AcceptPolicy.saveTo(receivePath.toFile(), false));
+        assertReceived(sender, "one.bin", SEED);
+
+        // Receiver Still Holds Finished Transfer, Fresh Sender Must Not Match It
+        sender.close();
+        senderWire.reset();
+        senderWire = newWire("WireA", SEED + 2);
+        senderWire.connect(receiverWire);
+        sender = new TransferEngine("A", senderWire);
+        sender.setSourceAddress(ADDRESS_A);
+        sender.setDestinationAddress(ADDRESS_B);
+        assertReceived(sender, "two.bin", SEED + 1);
+    }
+
+    private void assertReceived(TransferEngine sender, String fileName, long seed) throws IOException, InterruptedException {
+        byte[] dataArray = new byte[FILE_LENGTH / 16];
+        new Random(seed).nextBytes(dataArray);
+        Path sourcePath = Files.write(directory.resolve(fileName), dataArray);
+
+        assertTrue(sender.sendFile(sourcePath.toString()));
+        TransferEngine.ReceivedFile receivedFile = receiver.pollReceived(TIMEOUT, TimeUnit.SECONDS);
+        assertNotNull(receivedFile);
+        assertTrue(receivedFile.isVerified());
+        assertEquals(fileName, Paths.get(receivedFile.getFilePath()).getFileName().toString());
+        assertArrayEquals(dataArray, Files.readAllBytes(Paths.get(receivedFile.getFilePath())));
+    }
+
+    @Test
+    public void chatMessagesArriveOnceAndInOrder() throws InterruptedException {
+        assertDelivered(false);
+    }
+
+    @Test
+    public void coalescedChatMessagesArriveOnceAndInOrder() throws InterruptedException {
+        assertDelivered(true);
+    }
+
+    private void assertDelivered(boolean coalescingEnabled) throws InterruptedException {
+        connect();
+        sender.getChatAppLayer().setCoalescingEnabled(coalescingEnabled);
+        List<String> receivedList = Collections.synchronizedList(new ArrayList<>());
+        receiver.setMessageListener((layerName, message) -> {
+            if (layerName.equals("ChatApp")) receivedList.add(message);
+        });
+
+        // Mixed Sizes, One Message in the Middle Needs Fragmenting
+        List<String> messageList = new ArrayList<>();
+        for (int index = 0; index < MESSAGE_COUNT; index++) {
+            String message = "message " + index + " " + String.join("", Collections.nCopies(index % 7 * 10, "x"));
+            if (index == MESSAGE_COUNT / 2) message = String.join("", Collections.nCopies(3000, "L"));
+            messageList.add(message);
+            assertTrue(sender.sendMessage(message));
+        }
+
+        // Last Batch Goes Out on Flush Timer, Duplicates Would Trail Behind It
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (receivedList.size() < messageList.size() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Thread.sleep(100);
+        synchronized (receivedList) {
+            assertEquals(messageList, receivedList);
+        }
+    }
+
+}